@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.trace.ThreadLocalRandomIdGenerator;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+/**
+ * Compares id generation under contention. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar IdGeneratorBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+	private final IdGenerator jdk = new JdkIdGenerator();
+
+	private final ThreadLocalRandomIdGenerator threadLocalRandom = new ThreadLocalRandomIdGenerator();
+
+	@Benchmark
+	@Threads(1)
+	public UUID jdk_1() {
+		return this.jdk.generateId();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public UUID jdk_8() {
+		return this.jdk.generateId();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public UUID jdk_64() {
+		return this.jdk.generateId();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public UUID threadLocalRandom_1() {
+		return this.threadLocalRandom.generateId();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public UUID threadLocalRandom_8() {
+		return this.threadLocalRandom.generateId();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public UUID threadLocalRandom_64() {
+		return this.threadLocalRandom.generateId();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long threadLocalRandomLong_1() {
+		return this.threadLocalRandom.generateLongId();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public long threadLocalRandomLong_8() {
+		return this.threadLocalRandom.generateLongId();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public long threadLocalRandomLong_64() {
+		return this.threadLocalRandom.generateLongId();
+	}
+
+}
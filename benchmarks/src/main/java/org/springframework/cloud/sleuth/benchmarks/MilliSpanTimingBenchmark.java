@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.MilliSpan;
+
+/**
+ * Reads the timing state of a single span shared by 8 threads, as exporters and
+ * log listeners do, and compares {@link MilliSpan} with the previous
+ * {@code synchronized} implementation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MilliSpanTimingBenchmark {
+
+	private final MilliSpan span = new MilliSpan(System.currentTimeMillis(), 0, "span",
+			"traceId", Collections.<String>emptyList(), "spanId", false, true, null);
+
+	private final SynchronizedTiming synchronizedSpan = new SynchronizedTiming(
+			System.currentTimeMillis());
+
+	@Benchmark
+	public long milliSpan() {
+		return this.span.isRunning() ? this.span.getAccumulatedMillis() : 0;
+	}
+
+	@Benchmark
+	public long synchronizedBaseline() {
+		return this.synchronizedSpan.isRunning()
+				? this.synchronizedSpan.getAccumulatedMillis() : 0;
+	}
+
+	/**
+	 * The timing state of {@link MilliSpan} before it became lock-free.
+	 */
+	static class SynchronizedTiming {
+
+		private final long begin;
+
+		private long end = 0;
+
+		SynchronizedTiming(long begin) {
+			this.begin = begin;
+		}
+
+		public synchronized void stop() {
+			if (this.end == 0) {
+				this.end = System.currentTimeMillis();
+			}
+		}
+
+		public synchronized long getAccumulatedMillis() {
+			if (this.begin == 0) {
+				return 0;
+			}
+			if (this.end > 0) {
+				return this.end - this.begin;
+			}
+			return System.currentTimeMillis() - this.begin;
+		}
+
+		public synchronized boolean isRunning() {
+			return this.begin != 0 && this.end == 0;
+		}
+
+	}
+
+}
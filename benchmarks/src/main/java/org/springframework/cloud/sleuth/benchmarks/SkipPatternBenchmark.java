@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.instrument.web.SkipPatternMatcher;
+import org.springframework.cloud.sleuth.instrument.web.TraceFilter;
+
+/**
+ * Compares the skip decision of the {@link TraceFilter} made by the default regex and
+ * by the compiled {@link SkipPatternMatcher}. Run with
+ * {@code java -jar benchmarks/target/benchmarks.jar SkipPatternBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkipPatternBenchmark {
+
+	@Param({ "/api/orders/42/items", "/static/css/site.css", "/metrics/jvm.memory",
+			"/favicon.ico" })
+	public String uri;
+
+	private final SkipPatternMatcher matcher = new SkipPatternMatcher(
+			TraceFilter.DEFAULT_SKIP_PATTERN);
+
+	@Benchmark
+	public boolean regex() {
+		return TraceFilter.DEFAULT_SKIP_PATTERN.matcher(this.uri).matches();
+	}
+
+	@Benchmark
+	public boolean compiled() {
+		return this.matcher.matches(this.uri);
+	}
+
+}
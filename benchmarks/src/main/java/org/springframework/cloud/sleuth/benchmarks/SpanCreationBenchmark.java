@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.cloud.sleuth.trace.ThreadLocalRandomIdGenerator;
+
+/**
+ * Starts and closes a root and a child span with the span factories and with the
+ * previous builder round trip. Run with {@code -prof gc} to compare the bytes allocated
+ * per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpanCreationBenchmark {
+
+	private final DefaultTraceManager traceManager = new DefaultTraceManager(
+			new AlwaysSampler(), new ThreadLocalRandomIdGenerator(),
+			Collections.<SpanListener>emptyList(), Collections.<SpanReporter>emptyList());
+
+	private final DefaultTraceManager builderTraceManager = new BuilderTraceManager();
+
+	@Benchmark
+	public Trace spanFactories() {
+		return startAndClose(this.traceManager);
+	}
+
+	@Benchmark
+	public Trace builderRoundTrip() {
+		return startAndClose(this.builderTraceManager);
+	}
+
+	private static Trace startAndClose(DefaultTraceManager traceManager) {
+		Trace root = traceManager.startSpan("root");
+		Trace child = traceManager.startSpan("child");
+		traceManager.close(child);
+		return traceManager.close(root);
+	}
+
+	/**
+	 * Creates spans the way {@link DefaultTraceManager} did before the span factories:
+	 * a throwaway span turned into a builder, then the real span.
+	 */
+	static class BuilderTraceManager extends DefaultTraceManager {
+
+		private final ThreadLocalRandomIdGenerator idGenerator = new ThreadLocalRandomIdGenerator();
+
+		BuilderTraceManager() {
+			super(new AlwaysSampler(), new ThreadLocalRandomIdGenerator(),
+					Collections.<SpanListener>emptyList(),
+					Collections.<SpanReporter>emptyList());
+		}
+
+		@Override
+		protected Span createChild(Span parent, String name) {
+			String id = Long.toHexString(
+					this.idGenerator.generateId().getLeastSignificantBits());
+			MilliSpan.MilliSpanBuilder builder = MilliSpan.builder().build().toBuilder()
+					.begin(System.currentTimeMillis()).name(name).spanId(id);
+			if (parent == null) {
+				return builder.traceId(id).build();
+			}
+			return builder.traceId(parent.getTraceId()).parent(parent.getSpanId())
+					.processId(parent.getProcessId()).build();
+		}
+
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth;
+
+/**
+ * Exposes how well a {@link SpanReporter} keeps up with the spans it is given. Used to
+ * adapt the sampling rate to what the export pipeline can handle.
+ */
+public interface ExporterStatus {
+
+	/**
+	 * @return the number of spans accepted but not yet sent
+	 */
+	int getQueuedSpans();
+
+	/**
+	 * @return the number of spans that could not be exported since startup
+	 */
+	long getDroppedSpans();
+
+}
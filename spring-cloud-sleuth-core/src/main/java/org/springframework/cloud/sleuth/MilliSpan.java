@@ -18,39 +18,79 @@ package org.springframework.cloud.sleuth;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+import org.springframework.cloud.sleuth.util.ArrayMap;
+import org.springframework.cloud.sleuth.util.ViewableArrayList;
+
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Setter;
 import lombok.Singular;
 
 /**
  * @author Spencer Gibb
  */
 @Data
-@Builder(toBuilder=true)
 public class MilliSpan implements Span {
+	private static final AtomicLongFieldUpdater<MilliSpan> END_UPDATER =
+			AtomicLongFieldUpdater.newUpdater(MilliSpan.class, "end");
+
 	private final long begin;
-	private long end = 0;
-	private final String name;
+	private volatile long end = 0;
+	// see rename(String)
+	@Setter(AccessLevel.NONE)
+	private String name;
 	private final String traceId;
-	@Singular
 	private List<String> parents = new ArrayList<>();
 	private final String spanId;
 	private boolean remote = false;
 	private boolean exportable = true;
-	private final Map<String, String> annotations = new LinkedHashMap<>();
+	// created on first use, most spans are never annotated
+	@Setter(AccessLevel.NONE)
+	private ArrayMap<String, String> annotations;
 	private final String processId;
-	@Singular
-	private final List<TimelineAnnotation> timelineAnnotations = new ArrayList<>();
+	@Setter(AccessLevel.NONE)
+	private ViewableArrayList<TimelineAnnotation> timelineAnnotations;
 
 	public static MilliSpan.MilliSpanBuilder builder() {
-		return new MilliSpan().toBuilder();
+		return new MilliSpanBuilder().exportable(true);
+	}
+
+	/**
+	 * Creates a started span that begins a new trace, the span id doubles as trace id.
+	 */
+	public static MilliSpan root(String name, String id) {
+		return new MilliSpan(System.currentTimeMillis(), 0, name, id,
+				Collections.<String>emptyList(), id, false, true, null);
+	}
+
+	/**
+	 * Creates a started span as a child of the given parent.
+	 */
+	public static MilliSpan child(String name, Span parent, String spanId) {
+		return new MilliSpan(System.currentTimeMillis(), 0, name, parent.getTraceId(),
+				Collections.singletonList(parent.getSpanId()), spanId, false, true,
+				parent.getProcessId());
+	}
+
+	/**
+	 * Creates a span representing the caller of this process, built from propagated
+	 * ids. Any of name, parentId and processId may be null.
+	 */
+	public static MilliSpan remote(String name, String traceId, String spanId,
+			String parentId, String processId) {
+		List<String> parents = parentId != null ? Collections.singletonList(parentId)
+				: Collections.<String>emptyList();
+		return new MilliSpan(System.currentTimeMillis(), 0, name, traceId, parents,
+				spanId, true, true, processId);
 	}
 
-	public MilliSpan(long begin, long end, String name, String traceId, List<String> parents, String spanId, boolean remote, boolean exportable, String processId) {
+	@Builder(toBuilder=true)
+	public MilliSpan(long begin, long end, String name, String traceId, @Singular List<String> parents, String spanId, boolean remote, boolean exportable, String processId) {
 		this.begin = begin<=0 ? System.currentTimeMillis() : begin;
 		this.end = end;
 		this.name = name;
@@ -62,6 +102,15 @@ public class MilliSpan implements Span {
 		this.processId = processId;
 	}
 
+	/**
+	 * Replaces the name the span was started with once a better one is known, e.g. the
+	 * matched route of a request. Only the thread that closes the span may rename it,
+	 * right before closing it, so listeners and reporters see the new name on release.
+	 */
+	public void rename(String name) {
+		this.name = name;
+	}
+
 	//for serialization
 	private MilliSpan() {
 		this.begin = 0;
@@ -71,52 +120,69 @@ public class MilliSpan implements Span {
 		this.processId = null;
 	}
 
+	/**
+	 * Only the first call to stop sets the end time, also when spans are stopped
+	 * concurrently from several threads.
+	 */
 	@Override
-	public synchronized void stop() {
+	public void stop() {
 		if (this.end == 0) {
 			if (this.begin == 0) {
 				throw new IllegalStateException("Span for " + this.name
 						+ " has not been started");
 			}
-			this.end = System.currentTimeMillis();
+			END_UPDATER.compareAndSet(this, 0, System.currentTimeMillis());
 		}
 	}
 
 	@Override
-	public synchronized long getAccumulatedMillis() {
+	public long getAccumulatedMillis() {
 		if (this.begin == 0) {
 			return 0;
 		}
-		if (this.end > 0) {
-			return this.end - this.begin;
+		long end = this.end;
+		if (end > 0) {
+			return end - this.begin;
 		}
 		return System.currentTimeMillis() - this.begin;
 	}
 
 	@Override
-	public synchronized boolean isRunning() {
+	public boolean isRunning() {
 		return this.begin != 0 && this.end == 0;
 	}
 
 	@Override
 	public void addAnnotation(String key, String value) {
+		if (this.annotations == null) {
+			this.annotations = new ArrayMap<>();
+		}
 		this.annotations.put(key, value);
 	}
 
 	@Override
 	public void addTimelineAnnotation(String msg) {
+		if (this.timelineAnnotations == null) {
+			this.timelineAnnotations = new ViewableArrayList<>();
+		}
 		this.timelineAnnotations.add(new TimelineAnnotation(System.currentTimeMillis(),
 				msg));
 	}
 
 	@Override
 	public Map<String, String> getAnnotations() {
-		return Collections.unmodifiableMap(this.annotations);
+		if (this.annotations == null) {
+			return Collections.emptyMap();
+		}
+		return this.annotations.readOnly();
 	}
 
 	@Override
 	public List<TimelineAnnotation> getTimelineAnnotations() {
-		return Collections.unmodifiableList(this.timelineAnnotations);
+		if (this.timelineAnnotations == null) {
+			return Collections.emptyList();
+		}
+		return this.timelineAnnotations.readOnly();
 	}
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Value;
+
+/**
+ * Immutable span used for requests that are not sampled. It only carries the trace id
+ * (so that it can still be propagated and logged), has no span id, is never exported
+ * and ignores annotations.
+ */
+@Value
+public class NoOpSpan implements Span {
+
+	private final String name;
+
+	private final String traceId;
+
+	@Override
+	public String getSpanId() {
+		return null;
+	}
+
+	@Override
+	public String getProcessId() {
+		return null;
+	}
+
+	@Override
+	public List<String> getParents() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean isRemote() {
+		return false;
+	}
+
+	@Override
+	public void stop() {
+	}
+
+	@Override
+	public long getBegin() {
+		return 0;
+	}
+
+	@Override
+	public long getEnd() {
+		return 0;
+	}
+
+	@Override
+	public long getAccumulatedMillis() {
+		return 0;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return false;
+	}
+
+	@Override
+	public boolean isExportable() {
+		return false;
+	}
+
+	@Override
+	public void addAnnotation(String key, String value) {
+	}
+
+	@Override
+	public void addTimelineAnnotation(String msg) {
+	}
+
+	@Override
+	public Map<String, String> getAnnotations() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public List<TimelineAnnotation> getTimelineAnnotations() {
+		return Collections.emptyList();
+	}
+
+}
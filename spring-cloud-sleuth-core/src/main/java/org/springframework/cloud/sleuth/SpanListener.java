@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth;
+
+/**
+ * Callback for span lifecycle notifications. Listeners are invoked directly by the
+ * {@link TraceManager} on the thread that acquires, continues or releases the span, in
+ * the order given by {@link org.springframework.core.Ordered} or
+ * {@link org.springframework.core.annotation.Order}.
+ * <p/>
+ * Implementations should be cheap: they are on the hot path of every traced request.
+ *
+ * @see SpanReporter
+ */
+public interface SpanListener {
+
+	/**
+	 * A new span was created.
+	 *
+	 * @param parent the parent span (may be null)
+	 * @param span the new span
+	 */
+	void spanAcquired(Span parent, Span span);
+
+	/**
+	 * An existing span was attached to the current thread.
+	 */
+	void spanContinued(Span span);
+
+	/**
+	 * A span was stopped and removed from the current thread.
+	 *
+	 * @param parent the span that becomes current again (may be null)
+	 * @param span the released span
+	 */
+	void spanReleased(Span parent, Span span);
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth;
+
+/**
+ * Receives spans that have been closed and are eligible for export (see
+ * {@link Span#isExportable()}). Implementations typically hand the span over to a
+ * collector or queue it for sending. Reporters are called after every
+ * {@link SpanListener} has seen the release.
+ * <p>
+ * When a local root span with a {@link Span#isRemote() remote} parent is reported, the
+ * parent is reported right after it, so that the server side annotations added to it
+ * are exported with the trace. Remote spans have not been stopped yet.
+ *
+ * @see SpanListener
+ */
+public interface SpanReporter {
+
+	void report(Span span);
+
+}
@@ -43,8 +43,21 @@ public class Trace {
 
 	public static final String SPAN_EXPORT_NAME = "X-Span-Export";
 
+	/**
+	 * Single header replacing the others, see
+	 * {@link org.springframework.cloud.sleuth.util.CompactTraceHeader}
+	 */
+	public static final String TRACE_CONTEXT_NAME = "X-Trace-Context";
+
+	/**
+	 * Single binary message header replacing the others, see
+	 * {@link org.springframework.cloud.sleuth.util.BinaryTraceContext}
+	 */
+	public static final String BINARY_CONTEXT_NAME = "X-Trace-Context-Bin";
+
 	public static final List<String> HEADERS = Arrays.asList(SPAN_ID_NAME, TRACE_ID_NAME,
-	SPAN_NAME_NAME, PARENT_ID_NAME, PROCESS_ID_NAME, NOT_SAMPLED_NAME);
+	SPAN_NAME_NAME, PARENT_ID_NAME, PROCESS_ID_NAME, NOT_SAMPLED_NAME, TRACE_CONTEXT_NAME,
+	BINARY_CONTEXT_NAME);
 
 	/**
 	 * the span for this trace
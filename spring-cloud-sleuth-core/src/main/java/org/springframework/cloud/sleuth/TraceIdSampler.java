@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth;
+
+/**
+ * A {@link Sampler} that decides on the trace id alone. The trace manager generates the
+ * id of a new trace before asking for a decision and also applies the sampler to traces
+ * continued from a remote caller, so every service using the same sampler agrees on a
+ * trace without relying on propagated headers.
+ */
+public interface TraceIdSampler<T> extends Sampler<T> {
+
+	/**
+	 * @return whether the trace with the given id should be exported
+	 */
+	boolean isSampled(long traceId);
+
+}
@@ -16,16 +16,42 @@
 
 package org.springframework.cloud.sleuth.autoconfig;
 
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.ExporterStatus;
 import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.event.ApplicationEventSpanListener;
+import org.springframework.cloud.sleuth.sampler.AdaptiveSampler;
+import org.springframework.cloud.sleuth.sampler.AdaptiveSamplerMetrics;
 import org.springframework.cloud.sleuth.sampler.IsTracingSampler;
+import org.springframework.cloud.sleuth.sampler.PercentageBasedSampler;
+import org.springframework.cloud.sleuth.sampler.RateLimitingSampler;
+import org.springframework.cloud.sleuth.sampler.SamplerProperties;
+import org.springframework.cloud.sleuth.sampler.TailSamplingProperties;
+import org.springframework.cloud.sleuth.sampler.TailSamplingSpanListener;
+import org.springframework.cloud.sleuth.sampler.TraceIdBasedSampler;
 import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.cloud.sleuth.trace.ScopedTraceContextStorage;
+import org.springframework.cloud.sleuth.trace.StackTraceContextStorage;
+import org.springframework.cloud.sleuth.trace.ThreadLocalRandomIdGenerator;
+import org.springframework.cloud.sleuth.trace.ThreadLocalTraceContextStorage;
+import org.springframework.cloud.sleuth.trace.TraceContextStorage;
+import org.springframework.cloud.sleuth.trace.TraceContextStorageInstaller;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.util.IdGenerator;
-import org.springframework.util.JdkIdGenerator;
 
 /**
  * @author Spencer Gibb
@@ -34,10 +60,19 @@ import org.springframework.util.JdkIdGenerator;
 @ConditionalOnProperty(value="spring.sleuth.enabled", matchIfMissing=true)
 public class TraceAutoConfiguration {
 
+	@Autowired(required = false)
+	private List<SpanListener> spanListeners;
+
+	@Autowired(required = false)
+	private List<SpanReporter> spanReporters;
+
+	@Autowired(required = false)
+	private TailSamplingSpanListener tailSampling;
+
 	@Bean
 	@ConditionalOnMissingBean
 	public IdGenerator traceIdGenerator() {
-		return new JdkIdGenerator();
+		return new ThreadLocalRandomIdGenerator();
 	}
 
 	@Bean
@@ -46,10 +81,149 @@ public class TraceAutoConfiguration {
 		return new IsTracingSampler();
 	}
 
+	/**
+	 * Storage for the current trace, selected with
+	 * {@code spring.sleuth.context.storage}: {@code threadlocal} (the default),
+	 * {@code stack} or {@code scoped}.
+	 */
 	@Bean
 	@ConditionalOnMissingBean
-	public DefaultTraceManager traceManager(Sampler<Void> sampler, IdGenerator idGenerator,
-			ApplicationEventPublisher publisher) {
-		return new DefaultTraceManager(sampler, idGenerator, publisher);
+	public TraceContextStorage traceContextStorage(
+			@Value("${spring.sleuth.context.storage:threadlocal}") String storage) {
+		if ("stack".equalsIgnoreCase(storage)) {
+			return new StackTraceContextStorage();
+		}
+		if ("scoped".equalsIgnoreCase(storage)) {
+			return new ScopedTraceContextStorage();
+		}
+		if ("threadlocal".equalsIgnoreCase(storage)) {
+			return new ThreadLocalTraceContextStorage();
+		}
+		throw new IllegalStateException("Unknown spring.sleuth.context.storage ["
+				+ storage + "], expected threadlocal, stack or scoped");
+	}
+
+	/**
+	 * Makes the storage current for the static
+	 * {@link org.springframework.cloud.sleuth.trace.TraceContextHolder} while this
+	 * context is running, also when the trace manager is not ours.
+	 */
+	@Bean
+	public TraceContextStorageInstaller traceContextStorageInstaller(
+			TraceContextStorage storage) {
+		return new TraceContextStorageInstaller(storage);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@DependsOn("traceContextStorageInstaller")
+	public DefaultTraceManager traceManager(Sampler<Void> sampler, IdGenerator idGenerator) {
+		// the tail sampling stage decides which spans reach the reporters
+		List<SpanReporter> reporters = this.tailSampling != null
+				? Collections.<SpanReporter>emptyList() : this.spanReporters;
+		return new DefaultTraceManager(sampler, idGenerator, this.spanListeners,
+				reporters);
+	}
+
+	/**
+	 * Republishes span lifecycle callbacks as application events for consumers that
+	 * still listen for {@link org.springframework.cloud.sleuth.event.SpanReleasedEvent}
+	 * and friends.
+	 */
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.events.enabled")
+	protected static class SpanEventsConfiguration {
+		@Bean
+		public ApplicationEventSpanListener applicationEventSpanListener(
+				ApplicationEventPublisher publisher) {
+			return new ApplicationEventSpanListener(publisher);
+		}
+	}
+
+	/**
+	 * Adapts the share of exported traces to {@code spring.sleuth.sampler.budget} spans
+	 * per second and to the backlog of the exporters. The sampler configurations are
+	 * tried in the order declared here, so the budget wins over
+	 * {@code spring.sleuth.sampler.rate}, which wins over
+	 * {@code spring.sleuth.sampler.percentage}. Any other {@link Sampler} bean, e.g. a
+	 * user defined one, takes precedence over all of them.
+	 */
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.sampler.budget")
+	@ConditionalOnMissingBean(Sampler.class)
+	@EnableConfigurationProperties(SamplerProperties.class)
+	protected static class AdaptiveSamplerConfiguration {
+
+		@Autowired(required = false)
+		private List<ExporterStatus> exporters;
+
+		@Bean
+		public AdaptiveSampler adaptiveSampler(SamplerProperties properties) {
+			return new AdaptiveSampler(properties, this.exporters);
+		}
+
+		@Configuration
+		@ConditionalOnClass(PublicMetrics.class)
+		protected static class AdaptiveSamplerMetricsConfiguration {
+			@Bean
+			public AdaptiveSamplerMetrics adaptiveSamplerMetrics(AdaptiveSampler sampler) {
+				return new AdaptiveSamplerMetrics(sampler);
+			}
+		}
+	}
+
+	/**
+	 * Exports at most {@code spring.sleuth.sampler.rate} new traces per second.
+	 */
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.sampler.rate")
+	@EnableConfigurationProperties(SamplerProperties.class)
+	protected static class RateLimitingSamplerConfiguration {
+		@Bean
+		@ConditionalOnMissingBean
+		public Sampler<Void> rateLimitingSampler(SamplerProperties properties) {
+			return new RateLimitingSampler(properties);
+		}
+	}
+
+	/**
+	 * Exports the fraction of new traces given in
+	 * {@code spring.sleuth.sampler.percentage}, decided on the trace id if
+	 * {@code spring.sleuth.sampler.consistent} is set.
+	 */
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.sampler.percentage")
+	@EnableConfigurationProperties(SamplerProperties.class)
+	protected static class PercentageSamplerConfiguration {
+		@Bean
+		@ConditionalOnMissingBean
+		public Sampler<Void> percentageBasedSampler(SamplerProperties properties) {
+			if (properties.isConsistent()) {
+				return new TraceIdBasedSampler(properties);
+			}
+			return new PercentageBasedSampler(properties);
+		}
+	}
+
+	/**
+	 * Buffers spans until their local root closes and only exports slow, failed or
+	 * baseline sampled traces.
+	 */
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.sampler.tail.enabled")
+	@EnableConfigurationProperties(TailSamplingProperties.class)
+	protected static class TailSamplingConfiguration {
+
+		@Autowired(required = false)
+		private List<SpanReporter> spanReporters;
+
+		@Bean
+		public TailSamplingSpanListener tailSamplingSpanListener(
+				TailSamplingProperties properties) {
+			TailSamplingSpanListener listener = new TailSamplingSpanListener(properties);
+			// also when the trace manager is not ours
+			listener.setReporters(this.spanReporters);
+			return listener;
+		}
 	}
 }
@@ -37,7 +37,8 @@ public class TraceBootstrapEnvironmentPostProcessor implements EnvironmentPostPr
 	private static final String PROPERTY_SOURCE_NAME = "defaultProperties";
 	private static String[] headers = new String[] { Trace.SPAN_ID_NAME,
 			Trace.TRACE_ID_NAME, Trace.PARENT_ID_NAME, Trace.PROCESS_ID_NAME,
-			Trace.NOT_SAMPLED_NAME, Trace.SPAN_NAME_NAME };
+			Trace.NOT_SAMPLED_NAME, Trace.SPAN_NAME_NAME,
+			Trace.BINARY_CONTEXT_NAME };
 
 	@Override
 	public void postProcessEnvironment(ConfigurableEnvironment environment,
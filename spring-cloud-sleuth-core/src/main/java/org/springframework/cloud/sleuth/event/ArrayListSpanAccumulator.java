@@ -21,17 +21,25 @@ import java.util.ArrayList;
 import lombok.Value;
 
 import org.springframework.cloud.sleuth.Span;
-import org.springframework.context.ApplicationListener;
+import org.springframework.cloud.sleuth.SpanListener;
 
 /**
  * @author Spencer Gibb
  */
 @Value
-public class ArrayListSpanAccumulator implements ApplicationListener<SpanReleasedEvent> {
+public class ArrayListSpanAccumulator implements SpanListener {
 	private final ArrayList<Span> spans = new ArrayList<>();
 
 	@Override
-	public void onApplicationEvent(SpanReleasedEvent event) {
-		spans.add(event.getSpan());
+	public void spanAcquired(Span parent, Span span) {
+	}
+
+	@Override
+	public void spanContinued(Span span) {
+	}
+
+	@Override
+	public void spanReleased(Span parent, Span span) {
+		spans.add(span);
 	}
 }
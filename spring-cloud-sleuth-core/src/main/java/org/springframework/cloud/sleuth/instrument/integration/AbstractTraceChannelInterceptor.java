@@ -1,9 +1,11 @@
 package org.springframework.cloud.sleuth.instrument.integration;
 
 import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.NoOpSpan;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.util.BinaryTraceContext;
 import org.springframework.integration.channel.AbstractMessageChannel;
 import org.springframework.integration.context.IntegrationObjectSupport;
 import org.springframework.messaging.Message;
@@ -29,27 +31,25 @@ abstract class AbstractTraceChannelInterceptor extends ChannelInterceptorAdapter
 	 * trace id passed initially.
 	 */
 	Span buildSpan(Message<?> message) {
+		Object context = message.getHeaders().get(Trace.BINARY_CONTEXT_NAME);
+		if (context instanceof byte[] && BinaryTraceContext.isValid((byte[]) context)) {
+			byte[] value = (byte[]) context;
+			String traceId = BinaryTraceContext.getTraceId(value);
+			if (!BinaryTraceContext.isSampled(value)) {
+				return new NoOpSpan(null, traceId);
+			}
+			return MilliSpan.remote(null, traceId, BinaryTraceContext.getSpanId(value),
+					BinaryTraceContext.getParentId(value), null);
+		}
 		String spanId = getHeader(message, Trace.SPAN_ID_NAME);
 		String traceId = getHeader(message, Trace.TRACE_ID_NAME);
 		if (StringUtils.hasText(traceId)) {
-			MilliSpan.MilliSpanBuilder span = MilliSpan.builder().traceId(traceId).spanId(spanId);
-			String parentId = getHeader(message, Trace.PARENT_ID_NAME);
 			if (message.getHeaders().containsKey(Trace.NOT_SAMPLED_NAME)) {
-				span.exportable(false);
-			}
-			String processId = getHeader(message, Trace.PROCESS_ID_NAME);
-			String spanName = getHeader(message, Trace.SPAN_NAME_NAME);
-			if (spanName != null) {
-				span.name(spanName);
-			}
-			if (processId != null) {
-				span.processId(processId);
-			}
-			if (parentId != null) {
-				span.parent(parentId);
+				return new NoOpSpan(getHeader(message, Trace.SPAN_NAME_NAME), traceId);
 			}
-			span.remote(true);
-			return span.build();
+			return MilliSpan.remote(getHeader(message, Trace.SPAN_NAME_NAME), traceId,
+					spanId, getHeader(message, Trace.PARENT_ID_NAME),
+					getHeader(message, Trace.PROCESS_ID_NAME));
 		}
 		return null;
 	}
@@ -18,6 +18,7 @@ package org.springframework.cloud.sleuth.instrument.integration;
 
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.util.BinaryTraceContext;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 
@@ -34,6 +35,15 @@ import java.util.Map;
 public class SpanMessageHeaders {
 
 	public static Message<?> addSpanHeaders(Message<?> message, Span span) {
+		return addSpanHeaders(message, span, false);
+	}
+
+	/**
+	 * @param binary carry the span in the single {@link Trace#BINARY_CONTEXT_NAME}
+	 * header instead of the separate trace headers
+	 */
+	public static Message<?> addSpanHeaders(Message<?> message, Span span,
+			boolean binary) {
 		if (span == null) {
 			if (!message.getHeaders().containsKey(Trace.NOT_SAMPLED_NAME)) {
 				return MessageBuilder.fromMessage(message)
@@ -42,6 +52,18 @@ public class SpanMessageHeaders {
 			return message;
 		}
 
+		byte[] context = binary ? BinaryTraceContext.write(span) : null;
+		if (context != null) {
+			if (span.isExportable()) {
+				addAnnotations(message, span);
+			}
+			MessageBuilder<?> builder = MessageBuilder.fromMessage(message);
+			for (String name : Trace.HEADERS) {
+				builder.removeHeader(name);
+			}
+			return builder.setHeader(Trace.BINARY_CONTEXT_NAME, context).build();
+		}
+
 		Map<String, String> headers = new HashMap<>();
 		addHeader(headers, Trace.TRACE_ID_NAME, span.getTraceId());
 		addHeader(headers, Trace.SPAN_ID_NAME, span.getSpanId());
@@ -54,7 +76,8 @@ public class SpanMessageHeaders {
 		} else {
 			addHeader(headers, Trace.NOT_SAMPLED_NAME, "");
 		}
-		return MessageBuilder.fromMessage(message).copyHeaders(headers).build();
+		return MessageBuilder.fromMessage(message)
+				.removeHeader(Trace.BINARY_CONTEXT_NAME).copyHeaders(headers).build();
 	}
 
 	public static void addAnnotations(Message<?> message, Span span) {
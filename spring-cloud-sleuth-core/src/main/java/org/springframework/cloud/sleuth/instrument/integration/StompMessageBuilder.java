@@ -60,7 +60,11 @@ public class StompMessageBuilder {
 	}
 
 	public StompMessageBuilder setHeadersFromSpan(final Span span) {
-		if (span != null) {
+		if (span != null && !span.isExportable()) {
+			setHeaderIfAbsent(Trace.TRACE_ID_NAME, span.getTraceId());
+			setHeaderIfAbsent(Trace.NOT_SAMPLED_NAME, "");
+		}
+		else if (span != null) {
 			setHeaderIfAbsent(Trace.SPAN_ID_NAME, span.getSpanId());
 			setHeaderIfAbsent(Trace.TRACE_ID_NAME, span.getTraceId());
 			setHeaderIfAbsent(Trace.SPAN_NAME_NAME, span.getName());
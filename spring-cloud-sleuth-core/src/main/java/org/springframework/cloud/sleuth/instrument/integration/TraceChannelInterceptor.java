@@ -20,8 +20,10 @@ import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.sampler.IsTracingSampler;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.util.PatternMatchUtils;
 
 /**
  * @author Dave Syer
@@ -29,30 +31,44 @@ import org.springframework.messaging.MessageChannel;
  */
 public class TraceChannelInterceptor extends AbstractTraceChannelInterceptor {
 
-	private ThreadLocal<Trace> traceHolder = new ThreadLocal<>();
+	private final String[] binaryChannels;
 
 	public TraceChannelInterceptor(TraceManager traceManager) {
+		this(traceManager, new String[0]);
+	}
+
+	/**
+	 * @param binaryChannels patterns of the channels whose messages carry the span in
+	 * the binary header, e.g. {@code "orders*"}
+	 */
+	public TraceChannelInterceptor(TraceManager traceManager, String[] binaryChannels) {
 		super(traceManager);
+		this.binaryChannels = binaryChannels;
 	}
 
 	@Override
 	public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
-		Trace trace = this.traceHolder.get();
+		Trace trace = TraceContextHolder.getStorage().removeScopedTrace(this);
 		// Double close to clean up the parent (remote span as well)
 		this.traceManager.close(this.traceManager.close(trace));
-		this.traceHolder.remove();
 	}
 
 	@Override
 	public Message<?> preSend(Message<?> message, MessageChannel channel) {
 		if (this.traceManager.isTracing()) {
 			return SpanMessageHeaders.addSpanHeaders(message,
-					this.traceManager.getCurrentSpan());
+					this.traceManager.getCurrentSpan(), isBinary(channel));
 		}
 		String name = getMessageChannelName(channel);
 		Trace trace = startSpan(buildSpan(message), name, message);
-		this.traceHolder.set(trace);
-		return SpanMessageHeaders.addSpanHeaders(message, trace.getSpan());
+		TraceContextHolder.getStorage().setScopedTrace(this, trace);
+		return SpanMessageHeaders.addSpanHeaders(message, trace.getSpan(),
+				isBinary(channel));
+	}
+
+	private boolean isBinary(MessageChannel channel) {
+		return this.binaryChannels.length > 0 && PatternMatchUtils
+				.simpleMatch(this.binaryChannels, getChannelName(channel));
 	}
 
 	private Trace startSpan(Span span, String name, Message message) {
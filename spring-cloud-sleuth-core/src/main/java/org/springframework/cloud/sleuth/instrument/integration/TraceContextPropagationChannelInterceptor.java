@@ -23,6 +23,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -49,7 +50,7 @@ public class TraceContextPropagationChannelInterceptor extends ChannelIntercepto
 
 	private final TraceManager traceManager;
 
-	private final static ThreadLocal<Trace> ORIGINAL_CONTEXT = new ThreadLocal<>();
+	private final static Object ORIGINAL_CONTEXT = new Object();
 
 	public TraceContextPropagationChannelInterceptor(TraceManager traceManager) {
 		this.traceManager = traceManager;
@@ -100,14 +101,15 @@ public class TraceContextPropagationChannelInterceptor extends ChannelIntercepto
 	protected void populatePropagatedContext(Span span, Message<?> message,
 			MessageChannel channel) {
 		if (span != null) {
-			ORIGINAL_CONTEXT.set(this.traceManager.continueSpan(span).getSavedTrace());
+			TraceContextHolder.getStorage().setScopedTrace(ORIGINAL_CONTEXT,
+					this.traceManager.continueSpan(span).getSavedTrace());
 		}
 	}
 
 	protected void resetPropagatedContext() {
-		Trace originalContext = ORIGINAL_CONTEXT.get();
+		Trace originalContext = TraceContextHolder.getStorage()
+				.removeScopedTrace(ORIGINAL_CONTEXT);
 		this.traceManager.detach(originalContext);
-		ORIGINAL_CONTEXT.remove();
 	}
 
 	private class MessageWithSpan implements Message<Object> {
@@ -142,7 +144,7 @@ public class TraceContextPropagationChannelInterceptor extends ChannelIntercepto
 		}
 
 		public void setHeader(Map<String, Object> headers, String name, String value) {
-			if (!headers.containsKey(name)) {
+			if (value != null && !headers.containsKey(name)) {
 				headers.put(name, value);
 			}
 		}
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.sleuth.instrument.integration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -45,8 +46,10 @@ public class TraceSpringIntegrationAutoConfiguration {
 
 	@Bean
 	@GlobalChannelInterceptor
-	public TraceChannelInterceptor traceChannelInterceptor(TraceManager traceManager) {
-		return new TraceChannelInterceptor(traceManager);
+	public TraceChannelInterceptor traceChannelInterceptor(TraceManager traceManager,
+			@Value("${spring.sleuth.integration.binaryChannels:}")
+			String[] binaryChannels) {
+		return new TraceChannelInterceptor(traceManager, binaryChannels);
 	}
 
 	@Bean
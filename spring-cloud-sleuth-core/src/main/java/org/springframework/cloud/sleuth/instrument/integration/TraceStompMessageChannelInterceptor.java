@@ -18,6 +18,7 @@ package org.springframework.cloud.sleuth.instrument.integration;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
@@ -30,7 +31,6 @@ import org.springframework.messaging.support.ChannelInterceptor;
  * 
  */
 public class TraceStompMessageChannelInterceptor extends AbstractTraceChannelInterceptor implements ChannelInterceptor {
-	private ThreadLocal<Trace> traceScopeHolder = new ThreadLocal<Trace>();
 
 	public TraceStompMessageChannelInterceptor(final TraceManager traceManager) {
 		super(traceManager);
@@ -43,7 +43,7 @@ public class TraceStompMessageChannelInterceptor extends AbstractTraceChannelInt
 		}
 		String name = getMessageChannelName(channel);
 		Trace trace = startSpan(buildSpan(message), name);
-		this.traceScopeHolder.set(trace);
+		TraceContextHolder.getStorage().setScopedTrace(this, trace);
 		return StompMessageBuilder.fromMessage(message).setHeadersFromSpan(trace.getSpan()).build();
 	}
 
@@ -56,9 +56,7 @@ public class TraceStompMessageChannelInterceptor extends AbstractTraceChannelInt
 
 	@Override
 	public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
-		final ThreadLocal<Trace> traceScopeHolder = this.traceScopeHolder;
-		Trace traceInScope = traceScopeHolder.get();
+		Trace traceInScope = TraceContextHolder.getStorage().removeScopedTrace(this);
 		this.traceManager.close(traceInScope);
-		traceScopeHolder.remove();
 	}
 }
@@ -20,6 +20,7 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -41,7 +42,7 @@ public class TraceStompMessageContextPropagationChannelInterceptor extends Chann
 		implements ExecutorChannelInterceptor {
 
 	private final TraceManager traceManager;
-	private final static ThreadLocal<Trace> ORIGINAL_CONTEXT = new ThreadLocal<>();
+	private final static Object ORIGINAL_CONTEXT = new Object();
 
 	public TraceStompMessageContextPropagationChannelInterceptor(TraceManager traceManager) {
 		this.traceManager = traceManager;
@@ -82,14 +83,15 @@ public class TraceStompMessageContextPropagationChannelInterceptor extends Chann
 
 	protected void populatePropagatedContext(Span span) {
 		if (span != null) {
-			ORIGINAL_CONTEXT.set(this.traceManager.continueSpan(span).getSavedTrace());
+			TraceContextHolder.getStorage().setScopedTrace(ORIGINAL_CONTEXT,
+					this.traceManager.continueSpan(span).getSavedTrace());
 		}
 	}
 
 	protected void resetPropagatedContext() {
-		Trace originalContext = ORIGINAL_CONTEXT.get();
+		Trace originalContext = TraceContextHolder.getStorage()
+				.removeScopedTrace(ORIGINAL_CONTEXT);
 		this.traceManager.detach(originalContext);
-		ORIGINAL_CONTEXT.remove();
 	}
 
 	private class MessageWithSpan implements Message<Object> {
@@ -102,7 +104,9 @@ public class TraceStompMessageContextPropagationChannelInterceptor extends Chann
 			Assert.notNull(span, "span can not be null");
 			this.span = span;
 			this.message = StompMessageBuilder.fromMessage(message).setHeadersFromSpan(this.span).build();
-			addAnnotationsToSpanFromMessage(this.message, this.span);
+			if (this.span.isExportable()) {
+				addAnnotationsToSpanFromMessage(this.message, this.span);
+			}
 		}
 		
 		private void addAnnotationsToSpanFromMessage(Message<?> message, Span span) {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Registers completion callbacks on Java 8 {@code CompletionStage} results. The Java 8
+ * types are only used through reflection, so this class compiles against and loads on
+ * Java 7, where {@link #create(ClassLoader)} returns null.
+ */
+class CompletionStageCallbacks {
+
+	private static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+
+	private static final String BI_CONSUMER = "java.util.function.BiConsumer";
+
+	private final Class<?> completionStage;
+
+	private final Class<?> biConsumer;
+
+	private final Method whenComplete;
+
+	private CompletionStageCallbacks(Class<?> completionStage, Class<?> biConsumer) {
+		this.completionStage = completionStage;
+		this.biConsumer = biConsumer;
+		this.whenComplete = ReflectionUtils.findMethod(completionStage, "whenComplete",
+				biConsumer);
+	}
+
+	/**
+	 * @return the callbacks, or null if {@code CompletionStage} is not available
+	 */
+	static CompletionStageCallbacks create(ClassLoader classLoader) {
+		if (!ClassUtils.isPresent(COMPLETION_STAGE, classLoader)
+				|| !ClassUtils.isPresent(BI_CONSUMER, classLoader)) {
+			return null;
+		}
+		return new CompletionStageCallbacks(
+				ClassUtils.resolveClassName(COMPLETION_STAGE, classLoader),
+				ClassUtils.resolveClassName(BI_CONSUMER, classLoader));
+	}
+
+	boolean isCompletionStage(Object result) {
+		return this.completionStage.isInstance(result);
+	}
+
+	void whenComplete(Object stage, final Runnable callback) {
+		Object consumer = Proxy.newProxyInstance(
+				CompletionStageCallbacks.class.getClassLoader(),
+				new Class<?>[] { this.biConsumer }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (ReflectionUtils.isEqualsMethod(method)) {
+							return proxy == args[0];
+						}
+						if (ReflectionUtils.isHashCodeMethod(method)) {
+							return System.identityHashCode(proxy);
+						}
+						if (ReflectionUtils.isToStringMethod(method)) {
+							return "CompletionStage callback " + callback;
+						}
+						// BiConsumer.accept(result, exception)
+						callback.run();
+						return null;
+					}
+				});
+		ReflectionUtils.invokeMethod(this.whenComplete, stage, consumer);
+	}
+
+}
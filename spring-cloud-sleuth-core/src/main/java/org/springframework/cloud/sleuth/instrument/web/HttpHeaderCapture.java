@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides which HTTP headers become span annotations and under which key. Keys are
+ * built once per header name and shared afterwards, so capturing the same headers on
+ * every request does not allocate new key strings.
+ */
+public class HttpHeaderCapture {
+
+	/**
+	 * Header names come from the client, so only this many are remembered.
+	 */
+	static final int MAX_CACHED_NAMES = 256;
+
+	private static final String NOT_CAPTURED = "";
+
+	private final boolean enabled;
+
+	private final Set<String> include;
+
+	private final Set<String> exclude;
+
+	private final int maxValueLength;
+
+	private final ConcurrentMap<String, String> requestKeys = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, String> responseKeys = new ConcurrentHashMap<>();
+
+	public HttpHeaderCapture() {
+		this(new HttpHeaderProperties());
+	}
+
+	public HttpHeaderCapture(HttpHeaderProperties properties) {
+		this.enabled = properties.isEnabled();
+		this.include = lowerCase(properties.getInclude());
+		this.exclude = lowerCase(properties.getExclude());
+		this.maxValueLength = properties.getMaxValueLength();
+	}
+
+	private static Set<String> lowerCase(List<String> names) {
+		Set<String> set = new HashSet<>();
+		for (String name : names) {
+			set.add(name.toLowerCase());
+		}
+		return set;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @return the annotation key of the request header, or null if it is not captured
+	 */
+	public String requestKey(String name) {
+		return key(this.requestKeys, "/http/request/headers/", name);
+	}
+
+	/**
+	 * @return the annotation key of the response header, or null if it is not captured
+	 */
+	public String responseKey(String name) {
+		return key(this.responseKeys, "/http/response/headers/", name);
+	}
+
+	/**
+	 * @return the value to annotate, truncated to the maximum length
+	 */
+	public String value(String value) {
+		if (value != null && this.maxValueLength > 0
+				&& value.length() > this.maxValueLength) {
+			return value.substring(0, this.maxValueLength);
+		}
+		return value;
+	}
+
+	private String key(ConcurrentMap<String, String> keys, String prefix, String name) {
+		String key = keys.get(name);
+		if (key == null) {
+			String lowerCase = name.toLowerCase();
+			key = isCaptured(lowerCase) ? prefix + lowerCase : NOT_CAPTURED;
+			if (keys.size() < MAX_CACHED_NAMES) {
+				keys.putIfAbsent(name, key);
+			}
+		}
+		return key == NOT_CAPTURED ? null : key;
+	}
+
+	private boolean isCaptured(String name) {
+		return this.enabled && (this.include.isEmpty() || this.include.contains(name))
+				&& !this.exclude.contains(name);
+	}
+
+}
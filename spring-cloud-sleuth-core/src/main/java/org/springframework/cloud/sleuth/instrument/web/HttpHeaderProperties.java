@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Controls which HTTP headers are added to the annotations of exported server spans.
+ */
+@ConfigurationProperties("spring.sleuth.web.headers")
+@Data
+public class HttpHeaderProperties {
+	/**
+	 * Add request and response headers to the span annotations.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Headers to capture, case insensitive. All headers are captured if empty.
+	 */
+	private List<String> include = new ArrayList<>();
+
+	/**
+	 * Headers never captured, case insensitive.
+	 */
+	private List<String> exclude = new ArrayList<>(Arrays.asList("cookie",
+			"set-cookie", "authorization", "proxy-authorization"));
+
+	/**
+	 * Longer header values are truncated, no limit if 0 or less.
+	 */
+	private int maxValueLength = 256;
+}
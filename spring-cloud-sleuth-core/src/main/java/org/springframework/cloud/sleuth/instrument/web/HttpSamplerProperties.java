@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Per endpoint sampling rules, e.g.
+ *
+ * <pre>
+ * spring.sleuth.web.sampler.rules[0].path=/checkout/**
+ * spring.sleuth.web.sampler.rules[0].percentage=1.0
+ * spring.sleuth.web.sampler.rules[1].method=GET
+ * spring.sleuth.web.sampler.rules[1].path=/health
+ * spring.sleuth.web.sampler.rules[1].percentage=0.001
+ * spring.sleuth.web.sampler.rules[2].path=/**
+ * spring.sleuth.web.sampler.rules[2].percentage=0.05
+ * </pre>
+ */
+@ConfigurationProperties("spring.sleuth.web.sampler")
+@Data
+public class HttpSamplerProperties {
+	/**
+	 * Rules by HTTP method and path, the most specific matching rule wins.
+	 */
+	private List<Rule> rules = new ArrayList<>();
+
+	@Data
+	public static class Rule {
+		/**
+		 * HTTP method the rule applies to, any method if not set.
+		 */
+		private String method;
+
+		/**
+		 * Path with optional "*" segments, or ending with "/**" for a whole subtree.
+		 */
+		private String path;
+
+		/**
+		 * Fraction of matching requests to trace, between 0.0 and 1.0.
+		 */
+		private float percentage;
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.sampler.PercentageBasedSampler;
+import org.springframework.util.Assert;
+
+/**
+ * Picks the sampler for a request from its method and path. The rules are compiled into
+ * a trie of path segments, so a lookup walks the path once however many rules there
+ * are.
+ * <p>
+ * A path may contain {@code *} for a single segment and may end with {@code /**} to
+ * match a whole subtree. Literal segments take precedence over {@code *}, an exact rule
+ * over a subtree rule, and the deepest subtree rule wins. Rules for a specific method
+ * take precedence over rules for any method. The rules below a {@code *} segment are
+ * copied below its literal siblings when the trie is built, so a lookup never has to
+ * backtrack.
+ */
+public class HttpSamplerRules {
+
+	private final Node root = new Node();
+
+	public HttpSamplerRules(List<HttpSamplerProperties.Rule> rules) {
+		for (HttpSamplerProperties.Rule rule : rules) {
+			add(rule.getMethod(), rule.getPath(),
+					new PercentageBasedSampler(rule.getPercentage()));
+		}
+		compile(this.root);
+	}
+
+	/**
+	 * @return the sampler of the best matching rule, or null if no rule matches
+	 */
+	public Sampler<Void> samplerFor(String method, String path) {
+		Node node = this.root;
+		Sampler<Void> best = node.subtree.get(method);
+		int length = path.length();
+		int start = 0;
+		while (start < length) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = length;
+			}
+			if (end > start) {
+				Node next = node.children != null
+						? node.children.get(path.substring(start, end)) : null;
+				if (next == null) {
+					next = node.wildcard;
+				}
+				if (next == null) {
+					return best;
+				}
+				node = next;
+				Sampler<Void> subtree = node.subtree.get(method);
+				if (subtree != null) {
+					best = subtree;
+				}
+			}
+			start = end + 1;
+		}
+		Sampler<Void> exact = node.exact.get(method);
+		return exact != null ? exact : best;
+	}
+
+	private void add(String method, String path, Sampler<Void> sampler) {
+		Assert.hasText(path, "sampler rule path must not be empty");
+		Node node = this.root;
+		boolean subtree = false;
+		for (String segment : path.split("/")) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+			Assert.isTrue(!subtree, "'**' is only supported at the end of " + path);
+			if ("**".equals(segment)) {
+				subtree = true;
+			}
+			else {
+				node = node.child(segment);
+			}
+		}
+		(subtree ? node.subtree : node.exact).put(method, sampler);
+	}
+
+	private static void compile(Node node) {
+		if (node.children != null) {
+			for (Node child : node.children.values()) {
+				if (node.wildcard != null) {
+					merge(child, node.wildcard);
+				}
+				compile(child);
+			}
+		}
+		if (node.wildcard != null) {
+			compile(node.wildcard);
+		}
+	}
+
+	/**
+	 * Copies the rules of source into target where target has none of its own.
+	 */
+	private static void merge(Node target, Node source) {
+		target.exact.merge(source.exact);
+		target.subtree.merge(source.subtree);
+		if (source.children != null) {
+			for (Map.Entry<String, Node> child : source.children.entrySet()) {
+				merge(target.child(child.getKey()), child.getValue());
+			}
+		}
+		if (source.wildcard != null) {
+			merge(target.child("*"), source.wildcard);
+		}
+	}
+
+	private static class Node {
+
+		private Map<String, Node> children;
+
+		private Node wildcard;
+
+		private final Rules exact = new Rules();
+
+		private final Rules subtree = new Rules();
+
+		Node child(String segment) {
+			if ("*".equals(segment)) {
+				if (this.wildcard == null) {
+					this.wildcard = new Node();
+				}
+				return this.wildcard;
+			}
+			if (this.children == null) {
+				this.children = new HashMap<>();
+			}
+			Node child = this.children.get(segment);
+			if (child == null) {
+				child = new Node();
+				this.children.put(segment, child);
+			}
+			return child;
+		}
+
+	}
+
+	private static class Rules {
+
+		private Sampler<Void> anyMethod;
+
+		private Map<String, Sampler<Void>> byMethod;
+
+		Sampler<Void> get(String method) {
+			if (this.byMethod != null && method != null) {
+				Sampler<Void> sampler = this.byMethod.get(method);
+				if (sampler != null) {
+					return sampler;
+				}
+			}
+			return this.anyMethod;
+		}
+
+		void put(String method, Sampler<Void> sampler) {
+			if (method == null || method.isEmpty()) {
+				this.anyMethod = sampler;
+				return;
+			}
+			if (this.byMethod == null) {
+				this.byMethod = new HashMap<>();
+			}
+			this.byMethod.put(method.toUpperCase(), sampler);
+		}
+
+		void merge(Rules source) {
+			if (this.anyMethod == null) {
+				this.anyMethod = source.anyMethod;
+			}
+			if (source.byMethod != null) {
+				for (Map.Entry<String, Sampler<Void>> rule : source.byMethod.entrySet()) {
+					if (this.byMethod == null || !this.byMethod.containsKey(rule.getKey())) {
+						put(rule.getKey(), rule.getValue());
+					}
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Names server spans after the route template matched by Spring MVC, e.g.
+ * {@code http/orders/{id}}, instead of the request path. Names are built once per
+ * template. At most {@code maxNames} route names are handed out, later ones are
+ * collapsed into {@link #OTHER_NAME}, so that per name indexes and aggregates stay
+ * bounded. Requests that matched no route keep their path based name, out of a separate
+ * and smaller budget of {@code maxPathNames}, so that scans of random paths cannot use
+ * up the names of real routes.
+ */
+public class HttpSpanNames {
+
+	public static final String OTHER_NAME = "http/**";
+
+	/**
+	 * Value of {@code HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE}, Spring MVC may not
+	 * be on the classpath.
+	 */
+	static final String BEST_MATCHING_PATTERN_ATTRIBUTE = "org.springframework.web.servlet.HandlerMapping.bestMatchingPattern";
+
+	private final int maxNames;
+
+	private final int maxPathNames;
+
+	private final ConcurrentMap<String, String> patternNames = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Boolean> pathNames = new ConcurrentHashMap<>();
+
+	private final AtomicLong collapsed = new AtomicLong();
+
+	public HttpSpanNames() {
+		this(1000, 100);
+	}
+
+	public HttpSpanNames(int maxNames, int maxPathNames) {
+		this.maxNames = maxNames;
+		this.maxPathNames = maxPathNames;
+	}
+
+	/**
+	 * @param pattern the matched route template, null if there was none
+	 * @param name the name the span was started with, derived from the request path
+	 * @return the name of the span
+	 */
+	public String getName(String pattern, String name) {
+		if (pattern != null) {
+			String patternName = this.patternNames.get(pattern);
+			if (patternName != null) {
+				return patternName;
+			}
+			// Racy, so the limit may be exceeded by the number of concurrent requests
+			if (this.patternNames.size() < this.maxNames) {
+				patternName = "http" + pattern;
+				String previous = this.patternNames.putIfAbsent(pattern, patternName);
+				return previous != null ? previous : patternName;
+			}
+		}
+		else if (this.pathNames.containsKey(name)) {
+			return name;
+		}
+		else if (this.pathNames.size() < this.maxPathNames) {
+			this.pathNames.putIfAbsent(name, Boolean.TRUE);
+			return name;
+		}
+		this.collapsed.incrementAndGet();
+		return OTHER_NAME;
+	}
+
+	/**
+	 * @return the number of spans named {@link #OTHER_NAME} because of the limit
+	 */
+	public long getCollapsedSpans() {
+		return this.collapsed.get();
+	}
+
+}
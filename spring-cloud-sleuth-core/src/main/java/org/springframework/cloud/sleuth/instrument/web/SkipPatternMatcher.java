@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Matches request paths against a skip pattern without running the regex for every
+ * request. The top level alternatives of the pattern are compiled into
+ * <ul>
+ * <li>a set of exact paths, for literal alternatives,</li>
+ * <li>a prefix trie, for alternatives of the form {@code literal.*},</li>
+ * <li>a suffix trie, for alternatives of the form {@code .*literal},</li>
+ * </ul>
+ * and only the remaining alternatives are combined into a regex. Dots that should match
+ * a literal dot have to be escaped for an alternative to count as literal.
+ */
+public class SkipPatternMatcher {
+
+	private final Pattern pattern;
+
+	private final Set<String> exact = new HashSet<>();
+
+	private final CharTrie prefixes = new CharTrie();
+
+	private final CharTrie suffixes = new CharTrie();
+
+	private final Pattern remaining;
+
+	private boolean matchAll;
+
+	public SkipPatternMatcher(Pattern pattern) {
+		this.pattern = pattern;
+		List<String> leftover = new ArrayList<>();
+		for (String alternative : splitAlternatives(pattern.pattern())) {
+			if (!compile(alternative)) {
+				leftover.add(alternative);
+			}
+		}
+		this.remaining = leftover.isEmpty() ? null
+				: Pattern.compile(StringUtils.collectionToDelimitedString(leftover, "|"),
+						pattern.flags());
+	}
+
+	public Pattern getPattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * @return the alternatives that could not be compiled, or null if there are none
+	 */
+	// Visible for testing
+	Pattern getRemaining() {
+		return this.remaining;
+	}
+
+	public boolean matches(String path) {
+		if (this.matchAll || this.exact.contains(path)
+				|| this.prefixes.matchesPrefixOf(path, false)
+				|| this.suffixes.matchesPrefixOf(path, true)) {
+			return true;
+		}
+		return this.remaining != null && this.remaining.matcher(path).matches();
+	}
+
+	private boolean compile(String alternative) {
+		if (this.pattern.flags() != 0) {
+			// e.g. case insensitive matching is left to the regex
+			return false;
+		}
+		if (".*".equals(alternative)) {
+			this.matchAll = true;
+			return true;
+		}
+		if (alternative.startsWith(".*")) {
+			String suffix = literal(alternative.substring(2));
+			if (suffix != null) {
+				this.suffixes.add(new StringBuilder(suffix).reverse().toString());
+				return true;
+			}
+		}
+		if (alternative.endsWith(".*") && !alternative.endsWith("\\.*")) {
+			String prefix = literal(alternative.substring(0, alternative.length() - 2));
+			if (prefix != null) {
+				this.prefixes.add(prefix);
+				return true;
+			}
+		}
+		String exact = literal(alternative);
+		if (exact != null) {
+			this.exact.add(exact);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the text matched by the regex, or null if it is not a plain literal
+	 */
+	static String literal(String regex) {
+		StringBuilder literal = new StringBuilder(regex.length());
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 == regex.length()) {
+					return null;
+				}
+				char escaped = regex.charAt(++i);
+				if (Character.isLetterOrDigit(escaped)) {
+					// character classes like \d, back references, \Q...
+					return null;
+				}
+				literal.append(escaped);
+			}
+			else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+				return null;
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		return literal.toString();
+	}
+
+	/**
+	 * Splits the regex on the {@code |} that are not escaped, nested in a group or
+	 * inside a character class.
+	 */
+	static List<String> splitAlternatives(String regex) {
+		List<String> alternatives = new ArrayList<>();
+		int depth = 0;
+		boolean inClass = false;
+		int start = 0;
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				i++;
+			}
+			else if (inClass) {
+				inClass = c != ']';
+			}
+			else if (c == '[') {
+				inClass = true;
+			}
+			else if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (c == '|' && depth == 0) {
+				alternatives.add(regex.substring(start, i));
+				start = i + 1;
+			}
+		}
+		alternatives.add(regex.substring(start));
+		return alternatives;
+	}
+
+	/**
+	 * Trie of characters that tells whether one of its entries is a prefix of a given
+	 * string, read forwards or backwards.
+	 */
+	private static class CharTrie {
+
+		private final Node root = new Node();
+
+		private boolean empty = true;
+
+		void add(String entry) {
+			Node node = this.root;
+			for (int i = 0; i < entry.length(); i++) {
+				node = node.child(entry.charAt(i));
+			}
+			node.terminal = true;
+			this.empty = false;
+		}
+
+		boolean matchesPrefixOf(String value, boolean backwards) {
+			if (this.empty) {
+				return false;
+			}
+			Node node = this.root;
+			int length = value.length();
+			for (int i = 0; i < length; i++) {
+				if (node.terminal) {
+					return true;
+				}
+				node = node.get(value.charAt(backwards ? length - 1 - i : i));
+				if (node == null) {
+					return false;
+				}
+			}
+			return node.terminal;
+		}
+
+	}
+
+	private static class Node {
+
+		private char[] keys = new char[0];
+
+		private Node[] children = new Node[0];
+
+		private boolean terminal;
+
+		Node get(char c) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] == c) {
+					return this.children[i];
+				}
+			}
+			return null;
+		}
+
+		Node child(char c) {
+			Node child = get(c);
+			if (child == null) {
+				int length = this.keys.length;
+				this.keys = Arrays.copyOf(this.keys, length + 1);
+				this.children = Arrays.copyOf(this.children, length + 1);
+				this.keys[length] = c;
+				child = new Node();
+				this.children[length] = child;
+			}
+			return child;
+		}
+
+	}
+
+}
@@ -19,21 +19,27 @@ import static org.springframework.util.StringUtils.hasText;
 
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.cloud.sleuth.MilliSpan;
-import org.springframework.cloud.sleuth.MilliSpan.MilliSpanBuilder;
+import org.springframework.cloud.sleuth.NoOpSpan;
+import org.springframework.cloud.sleuth.Sampler;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.event.ServerReceivedEvent;
 import org.springframework.cloud.sleuth.event.ServerSentEvent;
 import org.springframework.cloud.sleuth.sampler.IsTracingSampler;
+import org.springframework.cloud.sleuth.trace.DetachedTraces;
+import org.springframework.cloud.sleuth.util.CompactTraceHeader;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
@@ -62,23 +68,58 @@ public class TraceFilter extends OncePerRequestFilter
 	protected static final String TRACE_REQUEST_ATTR = TraceFilter.class.getName()
 			+ ".TRACE";
 
+	private static final String ASYNC_LISTENER_ATTR = TraceFilter.class.getName()
+			+ ".ASYNC_LISTENER";
+
 	public static final Pattern DEFAULT_SKIP_PATTERN = Pattern.compile(
-			"/api-docs.*|/autoconfig|/configprops|/dump|/info|/metrics.*|/mappings|/trace|/swagger.*|.*\\.png|.*\\.css|.*\\.js|.*\\.html|/favicon.ico|/hystrix.stream");
+			"/api-docs.*|/autoconfig|/configprops|/dump|/info|/metrics.*|/mappings|/trace|/swagger.*|.*\\.png|.*\\.css|.*\\.js|.*\\.html|/favicon\\.ico|/hystrix\\.stream");
 
 	private final TraceManager traceManager;
-	private final Pattern skipPattern;
+	private final SkipPatternMatcher skipPattern;
+	private final HttpSamplerRules samplerRules;
+	private final HttpHeaderCapture headerCapture;
+	private final HttpSpanNames spanNames;
 	private UrlPathHelper urlPathHelper = new UrlPathHelper();
 
 	private ApplicationEventPublisher publisher;
 
 	public TraceFilter(TraceManager traceManager) {
-		this.traceManager = traceManager;
-		this.skipPattern = DEFAULT_SKIP_PATTERN;
+		this(traceManager, DEFAULT_SKIP_PATTERN);
 	}
 
 	public TraceFilter(TraceManager traceManager, Pattern skipPattern) {
+		this(traceManager, skipPattern, null);
+	}
+
+	/**
+	 * @param samplerRules picks the sampler for new traces by method and path, the
+	 * default sampler is used if null or if no rule matches
+	 */
+	public TraceFilter(TraceManager traceManager, Pattern skipPattern,
+			HttpSamplerRules samplerRules) {
+		this(traceManager, skipPattern, samplerRules, new HttpHeaderCapture());
+	}
+
+	/**
+	 * @param headerCapture decides which headers are added to exported spans
+	 */
+	public TraceFilter(TraceManager traceManager, Pattern skipPattern,
+			HttpSamplerRules samplerRules, HttpHeaderCapture headerCapture) {
+		this(traceManager, skipPattern, samplerRules, headerCapture,
+				new HttpSpanNames());
+	}
+
+	/**
+	 * @param spanNames names exported spans after the matched route
+	 */
+	public TraceFilter(TraceManager traceManager, Pattern skipPattern,
+			HttpSamplerRules samplerRules, HttpHeaderCapture headerCapture,
+			HttpSpanNames spanNames) {
 		this.traceManager = traceManager;
-		this.skipPattern = skipPattern;
+		this.skipPattern = new SkipPatternMatcher(skipPattern);
+		this.samplerRules = samplerRules;
+		this.headerCapture = headerCapture;
+		this.spanNames = spanNames;
 	}
 
 	@Override
@@ -92,10 +133,24 @@ public class TraceFilter extends OncePerRequestFilter
 					throws ServletException, IOException {
 
 		String uri = this.urlPathHelper.getPathWithinApplication(request);
-		boolean skip = this.skipPattern.matcher(uri).matches()
-				|| getHeader(request, response, Trace.NOT_SAMPLED_NAME) != null;
+		String context = request.getHeader(Trace.TRACE_CONTEXT_NAME);
+		boolean compact = CompactTraceHeader.isValid(context);
+		boolean skip = this.skipPattern.matches(uri) || (compact
+				? !CompactTraceHeader.isSampled(context)
+				: getHeader(request, response, Trace.NOT_SAMPLED_NAME) != null);
 
 		Trace trace = (Trace) request.getAttribute(TRACE_REQUEST_ATTR);
+		if (trace != null && request.getAttribute(ASYNC_LISTENER_ATTR) != null) {
+			// Async dispatch, the span is closed by the TraceAsyncListener
+			Trace continued = this.traceManager.continueSpan(trace.getSpan());
+			try {
+				filterChain.doFilter(request, response);
+			}
+			finally {
+				this.traceManager.detach(continued);
+			}
+			return;
+		}
 		if (trace != null) {
 			this.traceManager.continueSpan(trace.getSpan());
 		}
@@ -103,39 +158,43 @@ public class TraceFilter extends OncePerRequestFilter
 			addToResponseIfNotPresent(response, Trace.NOT_SAMPLED_NAME, "");
 		}
 
-		String spanId = getHeader(request, response, Trace.SPAN_ID_NAME);
-		String traceId = getHeader(request, response, Trace.TRACE_ID_NAME);
+		String traceId = compact ? CompactTraceHeader.getTraceId(context)
+				: getHeader(request, response, Trace.TRACE_ID_NAME);
+		String spanId = null;
+		String parentId = null;
+		String spanName = null;
+		String processId = null;
+		if (compact) {
+			spanId = CompactTraceHeader.getSpanId(context);
+			parentId = CompactTraceHeader.getParentId(context);
+		}
+		else if (hasText(traceId)) {
+			spanId = getHeader(request, response, Trace.SPAN_ID_NAME);
+			parentId = getHeader(request, response, Trace.PARENT_ID_NAME);
+			spanName = getHeader(request, response, Trace.SPAN_NAME_NAME);
+			processId = getHeader(request, response, Trace.PROCESS_ID_NAME);
+		}
 		String name = "http" + uri;
-		if (hasText(traceId)) {
-
-			MilliSpanBuilder span = MilliSpan.builder().traceId(traceId).spanId(spanId);
-			if (skip) {
-				span.exportable(false);
-			}
-			String parentId = getHeader(request, response, Trace.PARENT_ID_NAME);
-			String processId = getHeader(request, response, Trace.PROCESS_ID_NAME);
-			String parentName = getHeader(request, response, Trace.SPAN_NAME_NAME);
-			if (parentName != null) {
-				span.name(parentName);
-			}
-			if (processId != null) {
-				span.processId(processId);
-			}
-			if (parentId != null) {
-				span.parent(parentId);
-			}
-			span.remote(true);
+		if (hasText(traceId) && skip) {
+			// Not sampled upstream: keep the trace id and nothing else
+			Span parent = new NoOpSpan(spanName, traceId);
+			trace = this.traceManager.startSpan(name, parent);
+			request.setAttribute(TRACE_REQUEST_ATTR, trace);
+		}
+		else if (hasText(traceId)) {
 
-			Span parent = span.build();
+			Span parent = MilliSpan.remote(spanName, traceId, spanId, parentId,
+					processId);
 			trace = this.traceManager.startSpan(name, parent);
 			publish(new ServerReceivedEvent(this, parent, trace.getSpan()));
 			request.setAttribute(TRACE_REQUEST_ATTR, trace);
 
 		}
 		else {
-			if (skip) {
-				trace = this.traceManager.startSpan(name, IsTracingSampler.INSTANCE,
-						null);
+			Sampler<Void> sampler = skip ? IsTracingSampler.INSTANCE
+					: getSampler(request, uri);
+			if (sampler != null) {
+				trace = this.traceManager.startSpan(name, sampler, null);
 			}
 			else {
 				trace = this.traceManager.startSpan(name);
@@ -146,7 +205,9 @@ public class TraceFilter extends OncePerRequestFilter
 		Throwable exception = null;
 		try {
 
-			addRequestAnnotations(request);
+			if (isExportable(trace)) {
+				addRequestAnnotations(request, uri);
+			}
 			filterChain.doFilter(request, response);
 
 		}
@@ -155,29 +216,88 @@ public class TraceFilter extends OncePerRequestFilter
 			throw e;
 		}
 		finally {
-			if (isAsyncStarted(request) || request.isAsyncStarted()) {
-				// TODO: how to deal with response annotations and async?
-				return;
-			}
 			if (skip) {
 				addToResponseIfNotPresent(response, Trace.NOT_SAMPLED_NAME, "");
 			}
 			if (trace != null) {
-				addResponseAnnotations(response, exception);
 				addResponseHeaders(response, trace.getSpan());
-				if (trace.getSavedTrace() != null) {
-					publish(new ServerSentEvent(this, trace.getSavedTrace().getSpan(),
-							trace.getSpan()));
+				if (request.isAsyncStarted()) {
+					request.getAsyncContext().addListener(new TraceAsyncListener(trace),
+							request, response);
+					request.setAttribute(ASYNC_LISTENER_ATTR, true);
+					// Double detach to clean up the parent (remote span as well), the
+					// listener closes the span once the request completes
+					this.traceManager.detach(this.traceManager.detach(trace));
+				}
+				else {
+					closeSpan(trace, getStatus(response, exception), request,
+							response);
 				}
-				// Double close to clean up the parent (remote span as well)
-				this.traceManager.close(this.traceManager.close(trace));
 			}
 		}
 	}
 
+	private void closeSpan(Trace trace, int status, HttpServletRequest request,
+			HttpServletResponse response) {
+		completeSpan(trace, status, request, response);
+		// Double close to clean up the parent (remote span as well)
+		this.traceManager.close(this.traceManager.close(trace));
+	}
+
+	/**
+	 * Annotates the span with the response, names it and publishes the server send.
+	 * Does not need the trace to be current.
+	 */
+	private void completeSpan(Trace trace, int status, HttpServletRequest request,
+			HttpServletResponse response) {
+		if (!isExportable(trace)) {
+			return;
+		}
+		addResponseAnnotations(trace.getSpan(), response, status);
+		nameSpan(request, trace.getSpan());
+		if (trace.getSavedTrace() != null) {
+			publish(new ServerSentEvent(this, trace.getSavedTrace().getSpan(),
+					trace.getSpan()));
+		}
+	}
+
+	private void nameSpan(HttpServletRequest request, Span span) {
+		if (span instanceof MilliSpan) {
+			Object pattern = request
+					.getAttribute(HttpSpanNames.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			((MilliSpan) span).rename(this.spanNames.getName(
+					pattern instanceof String ? (String) pattern : null, span.getName()));
+		}
+	}
+
+	private int getStatus(HttpServletResponse response, Throwable e) {
+		if (response.getStatus() == HttpServletResponse.SC_OK && e != null) {
+			// Filter chain threw exception but the response status may not have been set
+			// yet, so we have to guess.
+			return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		}
+		return response.getStatus();
+	}
+
+	/**
+	 * @return the sampler of the matching rule, or null for the default sampler
+	 */
+	private Sampler<Void> getSampler(HttpServletRequest request, String uri) {
+		if (this.samplerRules == null) {
+			return null;
+		}
+		return this.samplerRules.samplerFor(request.getMethod(), uri);
+	}
+
+	private boolean isExportable(Trace trace) {
+		return trace != null && trace.getSpan() != null && trace.getSpan().isExportable();
+	}
+
 	private void addResponseHeaders(HttpServletResponse response, Span span) {
 		if (span != null) {
-			response.addHeader(Trace.SPAN_ID_NAME, span.getSpanId());
+			if (span.getSpanId() != null) {
+				response.addHeader(Trace.SPAN_ID_NAME, span.getSpanId());
+			}
 			response.addHeader(Trace.TRACE_ID_NAME, span.getTraceId());
 		}
 	}
@@ -188,43 +308,55 @@ public class TraceFilter extends OncePerRequestFilter
 		}
 	}
 
-	// TODO: move annotation keys to constants
+	/**
+	 * @deprecated the filter calls {@link #addRequestAnnotations(HttpServletRequest, String)}
+	 * with the path it has already resolved, override that one instead
+	 */
+	@Deprecated
 	protected void addRequestAnnotations(HttpServletRequest request) {
-		String uri = this.urlPathHelper.getPathWithinApplication(request);
+		addRequestAnnotations(request,
+				this.urlPathHelper.getPathWithinApplication(request));
+	}
+
+	// TODO: move annotation keys to constants
+	protected void addRequestAnnotations(HttpServletRequest request, String uri) {
 		this.traceManager.addAnnotation("/http/request/uri",
 				request.getRequestURL().toString());
 		this.traceManager.addAnnotation("/http/request/endpoint", uri);
 		this.traceManager.addAnnotation("/http/request/method", request.getMethod());
 
+		if (!this.headerCapture.isEnabled()) {
+			return;
+		}
 		Enumeration<String> headerNames = request.getHeaderNames();
 		while (headerNames.hasMoreElements()) {
 			String name = headerNames.nextElement();
+			String key = this.headerCapture.requestKey(name);
+			if (key == null) {
+				continue;
+			}
 			Enumeration<String> values = request.getHeaders(name);
 			while (values.hasMoreElements()) {
-				String value = values.nextElement();
-				String key = "/http/request/headers/" + name.toLowerCase();
-				this.traceManager.addAnnotation(key, value);
-
+				this.traceManager.addAnnotation(key,
+						this.headerCapture.value(values.nextElement()));
 			}
 		}
 	}
 
-	private void addResponseAnnotations(HttpServletResponse response, Throwable e) {
-		if (response.getStatus() == HttpServletResponse.SC_OK && e != null) {
-			// Filter chain threw exception but the response status may not have been set
-			// yet, so we have to guess.
-			this.traceManager.addAnnotation("/http/response/status_code",
-					String.valueOf(HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
-		}
-		else {
-			this.traceManager.addAnnotation("/http/response/status_code",
-					String.valueOf(response.getStatus()));
-		}
+	private void addResponseAnnotations(Span span, HttpServletResponse response,
+			int status) {
+		span.addAnnotation("/http/response/status_code", String.valueOf(status));
 
+		if (!this.headerCapture.isEnabled()) {
+			return;
+		}
 		for (String name : response.getHeaderNames()) {
+			String key = this.headerCapture.responseKey(name);
+			if (key == null) {
+				continue;
+			}
 			for (String value : response.getHeaders(name)) {
-				String key = "/http/response/headers/" + name.toLowerCase();
-				this.traceManager.addAnnotation(key, value);
+				span.addAnnotation(key, this.headerCapture.value(value));
 			}
 		}
 	}
@@ -246,4 +378,62 @@ public class TraceFilter extends OncePerRequestFilter
 	protected boolean shouldNotFilterAsyncDispatch() {
 		return false;
 	}
+
+	/**
+	 * Closes the span of an async request on the thread that completes it, so the
+	 * request thread is released as soon as the async processing starts.
+	 */
+	private class TraceAsyncListener implements AsyncListener {
+
+		private final Trace trace;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		TraceAsyncListener(Trace trace) {
+			this.trace = trace;
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) throws IOException {
+			// Listeners are removed when async processing starts again
+			event.getAsyncContext().addListener(this, event.getSuppliedRequest(),
+					event.getSuppliedResponse());
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) throws IOException {
+			close(event, getResponse(event).getStatus());
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) throws IOException {
+			int status = getResponse(event).getStatus();
+			// The error response is usually not written yet
+			close(event, status == HttpServletResponse.SC_OK
+					? HttpServletResponse.SC_SERVICE_UNAVAILABLE : status);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) throws IOException {
+			close(event, getStatus(getResponse(event), event.getThrowable()));
+		}
+
+		private HttpServletResponse getResponse(AsyncEvent event) {
+			return (HttpServletResponse) event.getSuppliedResponse();
+		}
+
+		private void close(AsyncEvent event, int status) {
+			if (!this.closed.compareAndSet(false, true)) {
+				return;
+			}
+			completeSpan(this.trace, status,
+					(HttpServletRequest) event.getSuppliedRequest(), getResponse(event));
+			// Double close to clean up the parent (remote span as well)
+			TraceManager traceManager = TraceFilter.this.traceManager;
+			DetachedTraces.close(traceManager,
+					DetachedTraces.close(traceManager, this.trace));
+		}
+
+	}
+
 }
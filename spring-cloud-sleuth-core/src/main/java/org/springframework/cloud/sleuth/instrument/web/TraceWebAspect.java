@@ -18,18 +18,31 @@ package org.springframework.cloud.sleuth.instrument.web;
 
 import java.lang.reflect.Field;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceAccessor;
 import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.instrument.TraceCallable;
+import org.springframework.cloud.sleuth.trace.DetachedTraces;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptorAdapter;
 import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
 import lombok.extern.apachecommons.CommonsLog;
 
@@ -40,11 +53,17 @@ import lombok.extern.apachecommons.CommonsLog;
  * <li>{@link RestController} annotated classes with public {@link Callable} methods</li>
  * <li>{@link Controller} annotated classes with public {@link Callable} methods</li>
  * <li>{@link Controller} or {@link RestController} annotated classes with public {@link WebAsyncTask} methods</li>
+ * <li>{@link Controller} or {@link RestController} annotated classes with public
+ * {@link DeferredResult}, {@link ListenableFuture} or {@code CompletableFuture} methods</li>
  * </ul>
  * <p/>
  * For controllers an around aspect is created that wraps the {@link Callable#call()}
  * method execution in {@link TraceCallable}
  * <p/>
+ * Deferred and future results are produced by threads the aspect does not control, so
+ * instead a child span named after the controller method is started and closed from
+ * the result's completion callback, on whichever thread completes it.
+ * <p/>
  *
  * @see RestController
  * @see Controller
@@ -61,6 +80,12 @@ import lombok.extern.apachecommons.CommonsLog;
 @CommonsLog
 public class TraceWebAspect {
 
+	private static final Field WEB_ASYNC_TASK_CALLABLE = findWebAsyncTaskCallable();
+
+	// null before Java 8
+	private static final CompletionStageCallbacks COMPLETION_STAGES = CompletionStageCallbacks
+			.create(TraceWebAspect.class.getClassLoader());
+
 	private final TraceManager traceManager;
 	private final TraceAccessor accessor;
 
@@ -93,6 +118,16 @@ public class TraceWebAspect {
 	private void anyControllerOrRestControllerWithPublicWebAsyncTaskMethod() {
 	}
 
+	@Pointcut("execution(public org.springframework.web.context.request.async.DeferredResult+ *(..))"
+			+ " || execution(public org.springframework.util.concurrent.ListenableFuture+ *(..))"
+			+ " || execution(public java.util.concurrent.CompletionStage+ *(..))")
+	private void anyPublicMethodReturningDeferredValue() {
+	}
+
+	@Pointcut("(anyRestControllerAnnotated() || anyControllerAnnotated()) && anyPublicMethodReturningDeferredValue()")
+	private void anyControllerOrRestControllerWithPublicDeferredValueMethod() {
+	}
+
 	@Around("anyControllerOrRestControllerWithPublicAsyncMethod()")
 	@SuppressWarnings("unchecked")
 	public Object wrapWithCorrelationId(ProceedingJoinPoint pjp) throws Throwable {
@@ -110,18 +145,113 @@ public class TraceWebAspect {
 	@Around("anyControllerOrRestControllerWithPublicWebAsyncTaskMethod()")
 	public Object wrapWebAsyncTaskWithCorrelationId(ProceedingJoinPoint pjp) throws Throwable {
 		final WebAsyncTask<?> webAsyncTask = (WebAsyncTask<?>) pjp.proceed();
-		if (this.accessor.isTracing()) {
-			try {
-				log.debug("Wrapping callable with span ["
-						+ this.accessor.getCurrentSpan() + "]");
-				Field callableField = WebAsyncTask.class.getDeclaredField("callable");
-				callableField.setAccessible(true);
-				callableField.set(webAsyncTask, new TraceCallable<>(this.traceManager, webAsyncTask.getCallable()));
-			} catch (NoSuchFieldException ex) {
-				log.warn("Cannot wrap webAsyncTask's callable with TraceCallable", ex);
-			}
+		if (this.accessor.isTracing() && webAsyncTask != null
+				&& WEB_ASYNC_TASK_CALLABLE != null) {
+			log.debug("Wrapping callable with span ["
+					+ this.accessor.getCurrentSpan() + "]");
+			ReflectionUtils.setField(WEB_ASYNC_TASK_CALLABLE, webAsyncTask,
+					new TraceCallable<>(this.traceManager, webAsyncTask.getCallable()));
 		}
 		return webAsyncTask;
 	}
 
+	@Around("anyControllerOrRestControllerWithPublicDeferredValueMethod()")
+	public Object traceDeferredValue(ProceedingJoinPoint pjp) throws Throwable {
+		Object result = pjp.proceed();
+		if (result == null || !this.accessor.isTracing()) {
+			return result;
+		}
+		if (result instanceof ListenableFuture) {
+			final AsyncResultSpan span = startSpan(pjp);
+			((ListenableFuture<?>) result).addCallback(new ListenableFutureCallback<Object>() {
+				@Override
+				public void onSuccess(Object value) {
+					span.close();
+				}
+
+				@Override
+				public void onFailure(Throwable ex) {
+					span.close();
+				}
+			});
+		}
+		else if (result instanceof DeferredResult) {
+			RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+			if (attributes instanceof ServletRequestAttributes) {
+				final AsyncResultSpan span = startSpan(pjp);
+				WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) attributes).getRequest())
+						.registerDeferredResultInterceptor(span,
+								new DeferredResultProcessingInterceptorAdapter() {
+									@Override
+									public <T> void postProcess(NativeWebRequest request,
+											DeferredResult<T> deferredResult,
+											Object concurrentResult) {
+										span.close();
+									}
+
+									@Override
+									public <T> void afterCompletion(NativeWebRequest request,
+											DeferredResult<T> deferredResult) {
+										span.close();
+									}
+								});
+			}
+		}
+		else if (COMPLETION_STAGES != null && COMPLETION_STAGES.isCompletionStage(result)) {
+			final AsyncResultSpan span = startSpan(pjp);
+			COMPLETION_STAGES.whenComplete(result, new Runnable() {
+				@Override
+				public void run() {
+					span.close();
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Starts a child of the current span for a deferred result and hands the request
+	 * thread back to the current span. The callbacks are registered afterwards so that a
+	 * result which is already complete closes the child straight away.
+	 */
+	private AsyncResultSpan startSpan(ProceedingJoinPoint pjp) {
+		Trace trace = this.traceManager.startSpan(pjp.getSignature().getName(),
+				this.accessor.getCurrentSpan());
+		this.traceManager.detach(trace);
+		log.debug("Tracing deferred result with span [" + trace.getSpan() + "]");
+		return new AsyncResultSpan(trace);
+	}
+
+	private static Field findWebAsyncTaskCallable() {
+		Field field = ReflectionUtils.findField(WebAsyncTask.class, "callable");
+		if (field == null) {
+			log.warn("Cannot wrap webAsyncTask's callable with TraceCallable");
+			return null;
+		}
+		ReflectionUtils.makeAccessible(field);
+		return field;
+	}
+
+	/**
+	 * Closes the span of a deferred result, at most once, from whichever thread
+	 * completes it.
+	 */
+	private class AsyncResultSpan {
+
+		private final Trace trace;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		AsyncResultSpan(Trace trace) {
+			this.trace = trace;
+		}
+
+		void close() {
+			if (this.closed.compareAndSet(false, true)) {
+				DetachedTraces.close(TraceWebAspect.this.traceManager, this.trace);
+			}
+		}
+
+	}
+
 }
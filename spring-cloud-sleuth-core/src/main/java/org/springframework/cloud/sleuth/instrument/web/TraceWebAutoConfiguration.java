@@ -24,6 +24,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.embedded.FilterRegistrationBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.sleuth.TraceAccessor;
 import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
@@ -45,6 +46,8 @@ import org.springframework.util.StringUtils;
 @ConditionalOnWebApplication
 @ConditionalOnBean(TraceManager.class)
 @AutoConfigureAfter(TraceAutoConfiguration.class)
+@EnableConfigurationProperties({ HttpSamplerProperties.class,
+		HttpHeaderProperties.class })
 public class TraceWebAutoConfiguration {
 
 	/**
@@ -53,6 +56,19 @@ public class TraceWebAutoConfiguration {
 	@Value("${spring.sleuth.instrument.web.skipPattern:}")
 	private String skipPattern;
 
+	/**
+	 * Number of distinct server span names, further ones are collapsed
+	 */
+	@Value("${spring.sleuth.web.maxSpanNames:1000}")
+	private int maxSpanNames;
+
+	/**
+	 * Number of distinct server span names for requests that matched no route, further
+	 * ones are collapsed
+	 */
+	@Value("${spring.sleuth.web.maxPathSpanNames:100}")
+	private int maxPathSpanNames;
+
 	@Autowired
 	private TraceManager traceManager;
 
@@ -65,10 +81,16 @@ public class TraceWebAutoConfiguration {
 	}
 
 	@Bean
-	public FilterRegistrationBean traceWebFilter(ApplicationEventPublisher publisher) {
+	public FilterRegistrationBean traceWebFilter(ApplicationEventPublisher publisher,
+			HttpSamplerProperties samplerProperties,
+			HttpHeaderProperties headerProperties) {
 		Pattern pattern = StringUtils.hasText(this.skipPattern) ? Pattern.compile(this.skipPattern)
 				: TraceFilter.DEFAULT_SKIP_PATTERN;
-		TraceFilter filter = new TraceFilter(this.traceManager, pattern);
+		HttpSamplerRules samplerRules = samplerProperties.getRules().isEmpty() ? null
+				: new HttpSamplerRules(samplerProperties.getRules());
+		TraceFilter filter = new TraceFilter(this.traceManager, pattern, samplerRules,
+				new HttpHeaderCapture(headerProperties),
+				new HttpSpanNames(this.maxSpanNames, this.maxPathSpanNames));
 		filter.setApplicationEventPublisher(publisher);
 		return new FilterRegistrationBean(filter);
 	}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
+import org.springframework.cloud.sleuth.event.ClientSentEvent;
+import org.springframework.cloud.sleuth.trace.DetachedTraces;
+import org.springframework.cloud.sleuth.util.TraceHeaders;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * {@link AsyncClientHttpRequestFactory} that traces the requests of an
+ * {@link org.springframework.web.client.AsyncRestTemplate}. Every call gets a child of
+ * the current span, which is sent in the request headers and closed from the
+ * response's {@link ListenableFuture} callback, so the calling thread never waits for
+ * the response.
+ *
+ * @see TraceRestTemplateInterceptor
+ */
+public class TraceAsyncClientHttpRequestFactory implements AsyncClientHttpRequestFactory {
+
+	private final AsyncClientHttpRequestFactory delegate;
+
+	private final TraceManager traceManager;
+
+	private final ApplicationEventPublisher publisher;
+
+	private final boolean compactHeaders;
+
+	/**
+	 * @param compactHeaders send the single {@link Trace#TRACE_CONTEXT_NAME} header
+	 * instead of the separate trace headers
+	 */
+	public TraceAsyncClientHttpRequestFactory(AsyncClientHttpRequestFactory delegate,
+			TraceManager traceManager, ApplicationEventPublisher publisher,
+			boolean compactHeaders) {
+		this.delegate = delegate;
+		this.traceManager = traceManager;
+		this.publisher = publisher;
+		this.compactHeaders = compactHeaders;
+	}
+
+	public AsyncClientHttpRequestFactory getDelegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+		return new TraceAsyncClientHttpRequest(
+				this.delegate.createAsyncRequest(uri, httpMethod));
+	}
+
+	/**
+	 * Starts the client span of a call and sets its headers, or only propagates the
+	 * current trace when it is not sampled.
+	 * @return the span to close when the call completes, or null if there is none
+	 */
+	private ClientSpan start(AsyncClientHttpRequest request) {
+		Span current = this.traceManager.getCurrentSpan();
+		if (current == null) {
+			return null;
+		}
+		if (current.getSpanId() == null) {
+			setHeaders(request.getHeaders(), current);
+			return null;
+		}
+		Trace trace = this.traceManager.startSpan("http" + request.getURI().getPath(),
+				current);
+		// The request thread carries on with its own span, the response may come
+		// back on any thread
+		this.traceManager.detach(trace);
+		setHeaders(request.getHeaders(), trace.getSpan());
+		publish(new ClientSentEvent(this, trace.getSpan()));
+		return new ClientSpan(trace);
+	}
+
+	private ListenableFuture<ClientHttpResponse> execute(AsyncClientHttpRequest request,
+			final ClientSpan span) throws IOException {
+		if (span == null) {
+			return request.executeAsync();
+		}
+		ListenableFuture<ClientHttpResponse> future;
+		try {
+			future = request.executeAsync();
+		}
+		catch (IOException | RuntimeException ex) {
+			span.close();
+			throw ex;
+		}
+		future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse response) {
+				span.close();
+			}
+
+			@Override
+			public void onFailure(Throwable ex) {
+				span.close();
+			}
+		});
+		return future;
+	}
+
+	private void setHeaders(final HttpHeaders headers, Span span) {
+		TraceHeaders.inject(span, this.compactHeaders, new TraceHeaders.Setter() {
+			@Override
+			public void setHeader(String name, String value) {
+				if (!headers.containsKey(name)) {
+					headers.add(name, value);
+				}
+			}
+		});
+	}
+
+	private void publish(ApplicationEvent event) {
+		if (this.publisher != null) {
+			this.publisher.publishEvent(event);
+		}
+	}
+
+	/**
+	 * Closes the span of one call, at most once, from whichever thread completes it.
+	 */
+	private class ClientSpan {
+
+		private final Trace trace;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		ClientSpan(Trace trace) {
+			this.trace = trace;
+		}
+
+		void close() {
+			if (!this.closed.compareAndSet(false, true)) {
+				return;
+			}
+			publish(new ClientReceivedEvent(TraceAsyncClientHttpRequestFactory.this,
+					this.trace.getSpan()));
+			DetachedTraces.close(TraceAsyncClientHttpRequestFactory.this.traceManager,
+					this.trace);
+		}
+
+	}
+
+	/**
+	 * Starts the span on the first write of the body or on execution, whichever comes
+	 * first: a streaming request sends its headers with the first byte of the body.
+	 */
+	private class TraceAsyncClientHttpRequest implements AsyncClientHttpRequest {
+
+		private final AsyncClientHttpRequest delegate;
+
+		private boolean started;
+
+		private ClientSpan span;
+
+		TraceAsyncClientHttpRequest(AsyncClientHttpRequest delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> executeAsync() throws IOException {
+			start();
+			return execute(this.delegate, this.span);
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.delegate.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return this.delegate.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.delegate.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			start();
+			return this.delegate.getBody();
+		}
+
+		private void start() {
+			if (!this.started) {
+				this.started = true;
+				this.span = TraceAsyncClientHttpRequestFactory.this.start(this.delegate);
+			}
+		}
+
+	}
+
+}
@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -43,6 +44,7 @@ import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
 import org.springframework.cloud.sleuth.instrument.hystrix.SleuthHystrixAutoConfiguration;
 import org.springframework.cloud.sleuth.instrument.hystrix.SleuthHystrixConcurrencyStrategy;
+import org.springframework.cloud.sleuth.util.TraceHeaders;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
@@ -83,6 +85,9 @@ public class TraceFeignClientAutoConfiguration {
 	@Autowired
 	private TraceAccessor accessor;
 
+	@Value("${spring.sleuth.propagation.compact:false}")
+	private boolean compactHeaders;
+
 	@Bean
 	@Scope("prototype")
 	@ConditionalOnClass(HystrixCommand.class)
@@ -119,22 +124,20 @@ public class TraceFeignClientAutoConfiguration {
 	public RequestInterceptor traceIdRequestInterceptor() {
 		return new RequestInterceptor() {
 			@Override
-			public void apply(RequestTemplate template) {
+			public void apply(final RequestTemplate template) {
 				Span span = getCurrentSpan();
-				if (span == null) {
-					setHeader(template, Trace.NOT_SAMPLED_NAME, "");
-					return;
-				}
-				if (span.getSpanId() == null) {
-					setHeader(template, Trace.TRACE_ID_NAME, span.getTraceId());
-					setHeader(template, Trace.NOT_SAMPLED_NAME, "");
+				TraceHeaders.inject(span,
+						TraceFeignClientAutoConfiguration.this.compactHeaders,
+						new TraceHeaders.Setter() {
+							@Override
+							public void setHeader(String name, String value) {
+								TraceFeignClientAutoConfiguration.this.setHeader(template,
+										name, value);
+							}
+						});
+				if (span == null || span.getSpanId() == null) {
 					return;
 				}
-				template.header(Trace.TRACE_ID_NAME, span.getTraceId());
-				setHeader(template, Trace.SPAN_NAME_NAME, span.getName());
-				setHeader(template, Trace.SPAN_ID_NAME, span.getSpanId());
-				setHeader(template, Trace.PARENT_ID_NAME, getParentId(span));
-				setHeader(template, Trace.PROCESS_ID_NAME, span.getProcessId());
 				publish(new ClientSentEvent(this, span));
 			}
 		};
@@ -146,11 +149,6 @@ public class TraceFeignClientAutoConfiguration {
 		}
 	}
 
-	private String getParentId(Span span) {
-		return span.getParents() != null && !span.getParents().isEmpty()
-				? span.getParents().get(0) : null;
-	}
-
 	public void setHeader(RequestTemplate request, String name, String value) {
 		if (value != null && !request.headers().containsKey(name)
 				&& this.accessor.isTracing()) {
@@ -174,7 +172,7 @@ public class TraceFeignClientAutoConfiguration {
 		}
 		setHeader(newHeaders, Trace.TRACE_ID_NAME, span.getTraceId());
 		setHeader(newHeaders, Trace.SPAN_ID_NAME, span.getSpanId());
-		setHeader(newHeaders, Trace.PARENT_ID_NAME, getParentId(span));
+		setHeader(newHeaders, Trace.PARENT_ID_NAME, TraceHeaders.getParentId(span));
 		return newHeaders;
 	}
 
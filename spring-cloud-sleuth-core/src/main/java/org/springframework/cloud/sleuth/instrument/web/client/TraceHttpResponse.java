@@ -19,6 +19,7 @@ package org.springframework.cloud.sleuth.instrument.web.client;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.springframework.cloud.sleuth.Trace;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpResponse;
@@ -31,11 +32,13 @@ public class TraceHttpResponse implements ClientHttpResponse {
 
 	private final ClientHttpResponse delegate;
 	private final TraceRestTemplateInterceptor interceptor;
+	private final Trace trace;
 
 	public TraceHttpResponse(TraceRestTemplateInterceptor interceptor,
-			ClientHttpResponse delegate) {
+			ClientHttpResponse delegate, Trace trace) {
 		this.interceptor = interceptor;
 		this.delegate = delegate;
+		this.trace = trace;
 	}
 
 	@Override
@@ -69,7 +72,7 @@ public class TraceHttpResponse implements ClientHttpResponse {
 			this.delegate.close();
 		}
 		finally {
-			this.interceptor.close();
+			this.interceptor.close(this.trace);
 		}
 	}
 }
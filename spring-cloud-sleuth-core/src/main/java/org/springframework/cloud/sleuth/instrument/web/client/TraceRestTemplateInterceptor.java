@@ -19,9 +19,11 @@ import java.io.IOException;
 
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
-import org.springframework.cloud.sleuth.TraceAccessor;
+import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
+import org.springframework.cloud.sleuth.trace.DetachedTraces;
+import org.springframework.cloud.sleuth.util.TraceHeaders;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
@@ -33,9 +35,13 @@ import org.springframework.http.client.ClientHttpResponse;
 /**
  * Interceptor that verifies whether the trance and span id has been set on the request
  * and sets them if one or both of them are missing.
+ * <p/>
+ * Every traced call gets its own child of the current span, so parallel calls have
+ * their own timing and client events. The child is closed with the response (see
+ * {@link TraceHttpResponse}).
  *
  * @see org.springframework.web.client.RestTemplate
- * @see TraceAccessor
+ * @see TraceManager
  *
  * @author Marcin Grzejszczak, 4financeIT
  * @author Spencer Gibb
@@ -45,10 +51,21 @@ ApplicationEventPublisherAware {
 
 	private ApplicationEventPublisher publisher;
 
-	private TraceAccessor accessor;
+	private TraceManager traceManager;
 
-	public TraceRestTemplateInterceptor(TraceAccessor accessor) {
-		this.accessor = accessor;
+	private final boolean compactHeaders;
+
+	public TraceRestTemplateInterceptor(TraceManager traceManager) {
+		this(traceManager, false);
+	}
+
+	/**
+	 * @param compactHeaders send the single {@link Trace#TRACE_CONTEXT_NAME} header
+	 * instead of the separate trace headers
+	 */
+	public TraceRestTemplateInterceptor(TraceManager traceManager, boolean compactHeaders) {
+		this.traceManager = traceManager;
+		this.compactHeaders = compactHeaders;
 	}
 
 	@Override
@@ -59,30 +76,46 @@ ApplicationEventPublisherAware {
 	@Override
 	public ClientHttpResponse intercept(HttpRequest request, byte[] body,
 			ClientHttpRequestExecution execution) throws IOException {
-		Span span = getCurrentSpan();
-		if (span == null) {
-			setHeader(request, Trace.NOT_SAMPLED_NAME, "");
+		Span current = getCurrentSpan();
+		if (current == null || current.getSpanId() == null) {
+			setHeaders(request, current);
 			return execution.execute(request, body);
 		}
-		if (span.getSpanId()==null) {
-			setHeader(request, Trace.TRACE_ID_NAME, span.getTraceId());
-			setHeader(request, Trace.NOT_SAMPLED_NAME, "");
-			return execution.execute(request, body);
-		}
-		setHeader(request, Trace.TRACE_ID_NAME, span.getTraceId());
-		setHeader(request, Trace.SPAN_ID_NAME, span.getSpanId());
-		setHeader(request, Trace.SPAN_NAME_NAME, span.getName());
-		setHeader(request, Trace.PARENT_ID_NAME, getParentId(span));
-		setHeader(request, Trace.PROCESS_ID_NAME, span.getProcessId());
+		Trace trace = this.traceManager.startSpan("http" + request.getURI().getPath(),
+				current);
+		Span span = trace.getSpan();
+		setHeaders(request, span);
 		publish(new ClientSentEvent(this, span));
-		return new TraceHttpResponse(this, execution.execute(request, body));
+		// The caller carries on with its own span, the response may be closed on any
+		// thread
+		this.traceManager.detach(trace);
+		ClientHttpResponse response;
+		try {
+			response = execution.execute(request, body);
+		}
+		catch (IOException | RuntimeException ex) {
+			close(trace);
+			throw ex;
+		}
+		return new TraceHttpResponse(this, response, trace);
 	}
 
-	public void close() {
-		if (getCurrentSpan() == null) {
-			return;
-		}
-		publish(new ClientReceivedEvent(this, getCurrentSpan()));
+	private void setHeaders(final HttpRequest request, Span span) {
+		TraceHeaders.inject(span, this.compactHeaders, new TraceHeaders.Setter() {
+			@Override
+			public void setHeader(String name, String value) {
+				TraceRestTemplateInterceptor.this.setHeader(request, name, value);
+			}
+		});
+	}
+
+	/**
+	 * Ends the detached client span of a call, from whichever thread closes the
+	 * response.
+	 */
+	public void close(Trace trace) {
+		publish(new ClientReceivedEvent(this, trace.getSpan()));
+		DetachedTraces.close(this.traceManager, trace);
 	}
 
 	private void publish(ApplicationEvent event) {
@@ -91,19 +124,14 @@ ApplicationEventPublisherAware {
 		}
 	}
 
-	private String getParentId(Span span) {
-		return span.getParents() != null && !span.getParents().isEmpty() ? span
-				.getParents().get(0) : null;
-	}
-
 	public void setHeader(HttpRequest request, String name, String value) {
-		if (value != null && !request.getHeaders().containsKey(name) && this.accessor.isTracing()) {
+		if (value != null && !request.getHeaders().containsKey(name) && this.traceManager.isTracing()) {
 			request.getHeaders().add(name, value);
 		}
 	}
 
 	private Span getCurrentSpan() {
-		return this.accessor.getCurrentSpan();
+		return this.traceManager.getCurrentSpan();
 	}
 
 }
@@ -23,16 +23,21 @@ import java.util.List;
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.sleuth.TraceAccessor;
+import org.springframework.cloud.sleuth.TraceManager;
 import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -47,8 +52,9 @@ public class TraceWebClientAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public TraceRestTemplateInterceptor traceRestTemplateInterceptor(TraceAccessor accessor) {
-		return new TraceRestTemplateInterceptor(accessor);
+	public TraceRestTemplateInterceptor traceRestTemplateInterceptor(TraceManager traceManager,
+			@Value("${spring.sleuth.propagation.compact:false}") boolean compactHeaders) {
+		return new TraceRestTemplateInterceptor(traceManager, compactHeaders);
 	}
 
 	@Bean
@@ -77,4 +83,34 @@ public class TraceWebClientAutoConfiguration {
 			}
 		}
 	}
+
+	@Configuration
+	@ConditionalOnClass(AsyncRestTemplate.class)
+	protected static class TraceAsyncRestTemplateConfiguration {
+
+		@Autowired(required = false)
+		private Collection<AsyncRestTemplate> asyncRestTemplates;
+
+		@Autowired
+		private TraceManager traceManager;
+
+		@Autowired
+		private ApplicationEventPublisher publisher;
+
+		@Value("${spring.sleuth.propagation.compact:false}")
+		private boolean compactHeaders;
+
+		@PostConstruct
+		public void init() {
+			if (this.asyncRestTemplates != null) {
+				for (AsyncRestTemplate asyncRestTemplate : this.asyncRestTemplates) {
+					AsyncClientHttpRequestFactory factory = asyncRestTemplate.getAsyncRequestFactory();
+					if (!(factory instanceof TraceAsyncClientHttpRequestFactory)) {
+						asyncRestTemplate.setAsyncRequestFactory(new TraceAsyncClientHttpRequestFactory(
+								factory, this.traceManager, this.publisher, this.compactHeaders));
+					}
+				}
+			}
+		}
+	}
 }
@@ -22,6 +22,7 @@ import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceAccessor;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
+import org.springframework.cloud.sleuth.util.TraceHeaders;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
@@ -41,8 +42,19 @@ ApplicationEventPublisherAware {
 
 	private final TraceAccessor accessor;
 
+	private final boolean compactHeaders;
+
 	public TracePreZuulFilter(TraceAccessor accessor) {
+		this(accessor, false);
+	}
+
+	/**
+	 * @param compactHeaders send the single {@link Trace#TRACE_CONTEXT_NAME} header
+	 * instead of the separate trace headers
+	 */
+	public TracePreZuulFilter(TraceAccessor accessor, boolean compactHeaders) {
 		this.accessor = accessor;
+		this.compactHeaders = compactHeaders;
 	}
 
 	@Override
@@ -58,24 +70,19 @@ ApplicationEventPublisherAware {
 	@Override
 	public Object run() {
 		RequestContext ctx = RequestContext.getCurrentContext();
-		Map<String, String> response = ctx.getZuulRequestHeaders();
+		final Map<String, String> response = ctx.getZuulRequestHeaders();
 		// N.B. this will only work with the simple host filter (not ribbon) unless you set hystrix.execution.isolation.strategy=SEMAPHORE
 		Span span = getCurrentSpan();
-		if (span == null) {
-			setHeader(response, Trace.NOT_SAMPLED_NAME, "");
-			return null;
-		}
-		if (span.getSpanId()==null) {
-			setHeader(response, Trace.TRACE_ID_NAME, span.getTraceId());
-			setHeader(response, Trace.NOT_SAMPLED_NAME, "");
+		TraceHeaders.inject(span, this.compactHeaders, new TraceHeaders.Setter() {
+			@Override
+			public void setHeader(String name, String value) {
+				TracePreZuulFilter.this.setHeader(response, name, value);
+			}
+		});
+		if (span == null || span.getSpanId() == null) {
 			return null;
 		}
 		try {
-			setHeader(response, Trace.SPAN_ID_NAME, span.getSpanId());
-			setHeader(response, Trace.TRACE_ID_NAME, span.getTraceId());
-			setHeader(response, Trace.SPAN_NAME_NAME, span.getName());
-			setHeader(response, Trace.PARENT_ID_NAME, getParentId(span));
-			setHeader(response, Trace.PROCESS_ID_NAME, span.getProcessId());
 			// TODO: the client sent event should come from the client not the filter!
 			publish(new ClientSentEvent(this, span));
 		}
@@ -89,11 +96,6 @@ ApplicationEventPublisherAware {
 		return this.accessor.getCurrentSpan();
 	}
 
-	private String getParentId(Span span) {
-		return span.getParents() != null && !span.getParents().isEmpty() ? span
-				.getParents().get(0) : null;
-	}
-
 	public void setHeader(Map<String, String> request, String name, String value) {
 		if (value != null && !request.containsKey(name) && this.accessor.isTracing()) {
 			request.put(name, value);
@@ -27,6 +27,7 @@ import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceAccessor;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
+import org.springframework.cloud.sleuth.util.TraceHeaders;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
@@ -47,10 +48,22 @@ public class TraceRestClientRibbonCommandFactory extends RestClientRibbonCommand
 
 	private final TraceAccessor accessor;
 
+	private final boolean compactHeaders;
+
 	public TraceRestClientRibbonCommandFactory(SpringClientFactory clientFactory,
 			TraceAccessor accessor) {
+		this(clientFactory, accessor, false);
+	}
+
+	/**
+	 * @param compactHeaders send the single {@link Trace#TRACE_CONTEXT_NAME} header
+	 * instead of the separate trace headers
+	 */
+	public TraceRestClientRibbonCommandFactory(SpringClientFactory clientFactory,
+			TraceAccessor accessor, boolean compactHeaders) {
 		super(clientFactory);
 		this.accessor = accessor;
+		this.compactHeaders = compactHeaders;
 	}
 
 	@Override
@@ -90,25 +103,20 @@ public class TraceRestClientRibbonCommandFactory extends RestClientRibbonCommand
 		}
 
 		@Override
-		protected void customizeRequest(HttpRequest.Builder requestBuilder) {
+		protected void customizeRequest(final HttpRequest.Builder requestBuilder) {
 			Span span = getCurrentSpan();
-			if (span == null) {
-				setHeader(requestBuilder, Trace.NOT_SAMPLED_NAME, "");
+			TraceHeaders.inject(span,
+					TraceRestClientRibbonCommandFactory.this.compactHeaders,
+					new TraceHeaders.Setter() {
+						@Override
+						public void setHeader(String name, String value) {
+							TraceRestClientRibbonCommand.this.setHeader(requestBuilder,
+									name, value);
+						}
+					});
+			if (span == null || span.getSpanId() == null) {
 				return;
 			}
-			if (span.getSpanId()==null) {
-				setHeader(requestBuilder, Trace.TRACE_ID_NAME, span.getTraceId());
-				setHeader(requestBuilder, Trace.NOT_SAMPLED_NAME, "");
-				return;
-			}
-
-			setHeader(requestBuilder, Trace.TRACE_ID_NAME, span.getTraceId());
-			setHeader(requestBuilder, Trace.SPAN_ID_NAME, span.getSpanId());
-			setHeader(requestBuilder, Trace.SPAN_NAME_NAME, span.getName());
-			setHeader(requestBuilder, Trace.PARENT_ID_NAME,
-					getParentId(span));
-			setHeader(requestBuilder, Trace.PROCESS_ID_NAME,
-					span.getProcessId());
 			publish(new ClientSentEvent(this, span));
 		}
 
@@ -118,11 +126,6 @@ public class TraceRestClientRibbonCommandFactory extends RestClientRibbonCommand
 			}
 		}
 
-		private String getParentId(Span span) {
-			return span.getParents() != null && !span.getParents().isEmpty()
-					? span.getParents().get(0) : null;
-		}
-
 		public void setHeader(HttpRequest.Builder builder, String name, String value) {
 			if (value != null && this.accessor.isTracing()) {
 				builder.header(name, value);
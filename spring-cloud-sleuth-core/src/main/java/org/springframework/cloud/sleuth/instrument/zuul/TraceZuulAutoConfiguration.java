@@ -15,6 +15,7 @@
  */
 package org.springframework.cloud.sleuth.instrument.zuul;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -43,15 +44,19 @@ import com.netflix.zuul.ZuulFilter;
 @AutoConfigureAfter(TraceAutoConfiguration.class)
 public class TraceZuulAutoConfiguration {
 
+	@Value("${spring.sleuth.propagation.compact:false}")
+	private boolean compactHeaders;
+
 	@Bean
 	@ConditionalOnMissingBean
 	public TracePreZuulFilter tracePreZuulFilter(TraceAccessor accessor) {
-		return new TracePreZuulFilter(accessor);
+		return new TracePreZuulFilter(accessor, this.compactHeaders);
 	}
 
 	@Bean
 	public TraceRestClientRibbonCommandFactory traceRestClientRibbonCommandFactory(SpringClientFactory factory, TraceAccessor accessor) {
-		return new TraceRestClientRibbonCommandFactory(factory, accessor);
+		return new TraceRestClientRibbonCommandFactory(factory, accessor,
+				this.compactHeaders);
 	}
 
 	@Bean
@@ -20,8 +20,8 @@ import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.apachecommons.CommonsLog;
 
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
-import org.springframework.context.event.EventListener;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
@@ -33,7 +33,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @CommonsLog
 @Data
-public class JsonLogSpanListener {
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class JsonLogSpanListener implements SpanListener {
 
 	private final String prefix;
 	private final String suffix;
@@ -45,11 +46,18 @@ public class JsonLogSpanListener {
 		this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 	}
 
+	@Override
+	public void spanAcquired(Span parent, Span span) {
+	}
+
+	@Override
+	public void spanContinued(Span span) {
+	}
+
+	@Override
 	@SneakyThrows
-	@EventListener(SpanReleasedEvent.class)
-	@Order(Ordered.LOWEST_PRECEDENCE-10)
-	public void stop(SpanReleasedEvent event) {
-		log.info(this.prefix + this.objectMapper.writeValueAsString(event.getSpan()) +
+	public void spanReleased(Span parent, Span span) {
+		log.info(this.prefix + this.objectMapper.writeValueAsString(span) +
 				this.suffix);
 	}
 
@@ -18,11 +18,8 @@ package org.springframework.cloud.sleuth.log;
 
 import org.slf4j.MDC;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
 import org.springframework.cloud.sleuth.Trace;
-import org.springframework.cloud.sleuth.event.SpanAcquiredEvent;
-import org.springframework.cloud.sleuth.event.SpanContinuedEvent;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
@@ -32,39 +29,35 @@ import lombok.extern.slf4j.Slf4j;
  * @author Spencer Gibb
  */
 @Slf4j
-public class Slf4jSpanListener {
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class Slf4jSpanListener implements SpanListener {
 
-	@EventListener(SpanAcquiredEvent.class)
-	@Order(Ordered.LOWEST_PRECEDENCE)
-	public void start(SpanAcquiredEvent event) {
-		Span span = event.getSpan();
-		MDC.put(Trace.SPAN_ID_NAME, span.getSpanId());
+	@Override
+	public void spanAcquired(Span parent, Span span) {
+		putSpanId(span.getSpanId());
 		MDC.put(Trace.SPAN_EXPORT_NAME, String.valueOf(span.isExportable()));
 		MDC.put(Trace.TRACE_ID_NAME, span.getTraceId());
 		log.trace("Starting span: {}", span);
-		if (event.getParent() != null) {
-			log.trace("With parent: {}", event.getParent());
+		if (parent != null) {
+			log.trace("With parent: {}", parent);
 		}
 	}
 
-	@EventListener(SpanContinuedEvent.class)
-	@Order(Ordered.LOWEST_PRECEDENCE)
-	public void continued(SpanContinuedEvent event) {
-		Span span = event.getSpan();
-		MDC.put(Trace.SPAN_ID_NAME, span.getSpanId());
+	@Override
+	public void spanContinued(Span span) {
+		putSpanId(span.getSpanId());
 		MDC.put(Trace.TRACE_ID_NAME, span.getTraceId());
 		MDC.put(Trace.SPAN_EXPORT_NAME, String.valueOf(span.isExportable()));
-		log.trace("Continued span: {}", event.getSpan());
+		log.trace("Continued span: {}", span);
 	}
 
-	@EventListener(SpanReleasedEvent.class)
-	@Order(Ordered.LOWEST_PRECEDENCE)
-	public void stop(SpanReleasedEvent event) {
-		log.trace("Stopped span: {}", event.getSpan());
-		if (event.getParent() != null) {
-			log.trace("With parent: {}", event.getParent());
-			MDC.put(Trace.SPAN_ID_NAME, event.getParent().getSpanId());
-			MDC.put(Trace.SPAN_EXPORT_NAME, String.valueOf(event.getParent().isExportable()));
+	@Override
+	public void spanReleased(Span parent, Span span) {
+		log.trace("Stopped span: {}", span);
+		if (parent != null) {
+			log.trace("With parent: {}", parent);
+			putSpanId(parent.getSpanId());
+			MDC.put(Trace.SPAN_EXPORT_NAME, String.valueOf(parent.isExportable()));
 		}
 		else {
 			MDC.remove(Trace.SPAN_ID_NAME);
@@ -73,4 +66,14 @@ public class Slf4jSpanListener {
 		}
 	}
 
+	private void putSpanId(String spanId) {
+		// unsampled spans only carry a trace id
+		if (spanId != null) {
+			MDC.put(Trace.SPAN_ID_NAME, spanId);
+		}
+		else {
+			MDC.remove(Trace.SPAN_ID_NAME);
+		}
+	}
+
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.ExporterStatus;
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.util.Assert;
+
+/**
+ * Samples new traces with a probability that follows what the export pipeline can
+ * take. Once per second the probability is halved if the exporters drop spans, have
+ * more than {@code maxQueuedSpans} queued or more spans than the budget were reported,
+ * and raised by a small step otherwise (additive increase, multiplicative decrease).
+ * Traces that are already in progress are always continued.
+ * <p>
+ * The sampler is also a {@link SpanReporter} so it can count the spans that are
+ * actually exported.
+ */
+public class AdaptiveSampler implements Sampler<Void>, SpanReporter {
+
+	static final double MIN_PROBABILITY = 0.001;
+
+	static final double INCREASE = 0.05;
+
+	private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private final int spansPerSecond;
+
+	private final int maxQueuedSpans;
+
+	private final List<ExporterStatus> exporters;
+
+	private final AtomicLong reportedSpans = new AtomicLong();
+
+	private final AtomicLong lastAdjustment;
+
+	private volatile double probability = 1.0;
+
+	private volatile double spanRate;
+
+	private volatile long lastDroppedSpans;
+
+	public AdaptiveSampler(SamplerProperties configuration,
+			Collection<? extends ExporterStatus> exporters) {
+		this(configuration.getBudget(), configuration.getMaxQueuedSpans(), exporters);
+	}
+
+	public AdaptiveSampler(int spansPerSecond, int maxQueuedSpans,
+			Collection<? extends ExporterStatus> exporters) {
+		Assert.isTrue(spansPerSecond > 0,
+				"spansPerSecond should be positive but was " + spansPerSecond);
+		this.spansPerSecond = spansPerSecond;
+		this.maxQueuedSpans = maxQueuedSpans;
+		this.exporters = exporters != null ? new ArrayList<ExporterStatus>(exporters)
+				: new ArrayList<ExporterStatus>();
+		this.lastAdjustment = new AtomicLong(nanoTime());
+	}
+
+	@Override
+	public boolean next(Void info) {
+		if (TraceContextHolder.isTracing()) {
+			return true;
+		}
+		maybeAdjust();
+		double probability = this.probability;
+		return probability >= 1.0 || ThreadLocalRandom.current().nextDouble() < probability;
+	}
+
+	@Override
+	public void report(Span span) {
+		this.reportedSpans.incrementAndGet();
+	}
+
+	/**
+	 * @return the current probability of sampling a new trace
+	 */
+	public double getProbability() {
+		return this.probability;
+	}
+
+	/**
+	 * @return the spans per second reported during the last interval
+	 */
+	public double getSpanRate() {
+		return this.spanRate;
+	}
+
+	private void maybeAdjust() {
+		long now = nanoTime();
+		long last = this.lastAdjustment.get();
+		// only one thread wins the update for each interval
+		if (now - last >= INTERVAL && this.lastAdjustment.compareAndSet(last, now)) {
+			adjust(now - last);
+		}
+	}
+
+	private void adjust(long elapsedNanos) {
+		double spanRate = this.reportedSpans.getAndSet(0)
+				* (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		int queued = 0;
+		long dropped = 0;
+		for (ExporterStatus exporter : this.exporters) {
+			queued += exporter.getQueuedSpans();
+			dropped += exporter.getDroppedSpans();
+		}
+		boolean dropping = dropped > this.lastDroppedSpans;
+		this.lastDroppedSpans = dropped;
+		double probability = this.probability;
+		if (dropping || queued > this.maxQueuedSpans || spanRate > this.spansPerSecond) {
+			probability = Math.max(MIN_PROBABILITY, probability / 2);
+		}
+		else {
+			probability = Math.min(1.0, probability + INCREASE);
+		}
+		this.spanRate = spanRate;
+		this.probability = probability;
+	}
+
+	protected long nanoTime() {
+		return System.nanoTime();
+	}
+
+}
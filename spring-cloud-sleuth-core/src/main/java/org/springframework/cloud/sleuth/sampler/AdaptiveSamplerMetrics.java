@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Publishes the current decisions of an {@link AdaptiveSampler}.
+ */
+public class AdaptiveSamplerMetrics implements PublicMetrics {
+
+	private final AdaptiveSampler sampler;
+
+	public AdaptiveSamplerMetrics(AdaptiveSampler sampler) {
+		this.sampler = sampler;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<>("sleuth.sampler.probability",
+				this.sampler.getProbability()));
+		metrics.add(new Metric<>("sleuth.sampler.spans.rate",
+				this.sampler.getSpanRate()));
+		return metrics;
+	}
+
+}
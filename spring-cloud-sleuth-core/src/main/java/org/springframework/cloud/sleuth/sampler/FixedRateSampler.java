@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.util.Assert;
+
+/**
+ * Samples exactly one in every {@code rate} new traces, starting with the first, using
+ * an atomic counter instead of a percentage, so any rate is represented exactly.
+ */
+public class FixedRateSampler implements Sampler<Void> {
+
+	private final AtomicLong counter = new AtomicLong();
+
+	private final int rate;
+
+	public FixedRateSampler(int rate) {
+		Assert.isTrue(rate > 0, "rate should be positive but was " + rate);
+		this.rate = rate;
+	}
+
+	@Override
+	public boolean next(Void info) {
+		if (this.rate == 1) {
+			return true;
+		}
+		return (this.counter.getAndIncrement() & Long.MAX_VALUE) % this.rate == 0;
+	}
+
+}
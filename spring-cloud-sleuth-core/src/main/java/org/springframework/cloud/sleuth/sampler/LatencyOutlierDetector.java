@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.util.Assert;
+
+/**
+ * Tells whether a span took unusually long compared to the other spans with the same
+ * name. Keeps a streaming histogram of durations per span name and flags spans above
+ * the configured quantile (e.g. p99) of their name.
+ * <p>
+ * The histograms use logarithmic buckets with 8 linear sub-buckets per power of two (in
+ * the style of HdrHistogram), so each takes a fixed few kilobytes and quantiles are
+ * accurate to about 12%. Recording is a single atomic increment. The quantile is only
+ * recomputed every {@value #REFRESH_INTERVAL} spans. At most {@code maxNames} span names
+ * are tracked, spans with other names are never flagged.
+ */
+public class LatencyOutlierDetector {
+
+	static final int MIN_SAMPLES = 100;
+
+	static final int REFRESH_INTERVAL = 64;
+
+	private final double quantile;
+
+	private final int maxNames;
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	private final AtomicLong untrackedSpans = new AtomicLong();
+
+	public LatencyOutlierDetector(double quantile, int maxNames) {
+		Assert.isTrue(quantile > 0.0 && quantile < 1.0,
+				"quantile should be between 0.0 and 1.0 but was " + quantile);
+		this.quantile = quantile;
+		this.maxNames = maxNames;
+	}
+
+	/**
+	 * Records the duration of the span and tells whether it is above the quantile of
+	 * the spans with the same name recorded so far.
+	 */
+	public boolean isOutlier(Span span) {
+		Histogram histogram = histogram(span.getName());
+		if (histogram == null) {
+			this.untrackedSpans.incrementAndGet();
+			return false;
+		}
+		long millis = span.getAccumulatedMillis();
+		boolean outlier = histogram.count() >= MIN_SAMPLES
+				&& millis > histogram.threshold;
+		histogram.record(millis, this.quantile);
+		return outlier;
+	}
+
+	/**
+	 * @return the number of spans not considered because too many names are tracked
+	 */
+	public long getUntrackedSpans() {
+		return this.untrackedSpans.get();
+	}
+
+	private Histogram histogram(String name) {
+		String key = name != null ? name : "";
+		Histogram histogram = this.histograms.get(key);
+		if (histogram == null) {
+			if (this.histograms.size() >= this.maxNames) {
+				return null;
+			}
+			Histogram created = new Histogram();
+			histogram = this.histograms.putIfAbsent(key, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+
+	static class Histogram {
+
+		private static final int SUB_BUCKET_BITS = 3;
+
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong count = new AtomicLong();
+
+		// upper bound of the bucket holding the quantile, refreshed periodically
+		private volatile long threshold = Long.MAX_VALUE;
+
+		void record(long value, double quantile) {
+			this.counts.incrementAndGet(index(Math.max(0, value)));
+			if (this.count.incrementAndGet() % REFRESH_INTERVAL == 0) {
+				this.threshold = valueAt(quantile);
+			}
+		}
+
+		long count() {
+			return this.count.get();
+		}
+
+		long valueAt(double quantile) {
+			long total = 0;
+			long[] snapshot = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				snapshot[i] = this.counts.get(i);
+				total += snapshot[i];
+			}
+			long target = (long) Math.ceil(quantile * total);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += snapshot[i];
+				if (seen >= target && seen > 0) {
+					return upperBound(i);
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+
+		static int index(long value) {
+			if (value < SUB_BUCKETS) {
+				return (int) value;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		static long upperBound(int index) {
+			if (index < SUB_BUCKETS) {
+				return index;
+			}
+			int shift = index / SUB_BUCKETS - 1;
+			long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+			return lower + (1L << shift) - 1;
+		}
+
+	}
+
+}
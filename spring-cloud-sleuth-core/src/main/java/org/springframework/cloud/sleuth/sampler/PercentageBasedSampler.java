@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.util.Assert;
+
+/**
+ * Samples a fixed percentage of new traces. The decisions for each block of 10000
+ * traces are shuffled once on startup and read back with an atomic counter, so every
+ * 10000 consecutive calls sample exactly the configured number of traces, without
+ * locking or drawing a random number per call. Percentages are therefore rounded to the
+ * nearest 0.0001; for a plain one-in-N rate use {@link FixedRateSampler}.
+ */
+public class PercentageBasedSampler implements Sampler<Void> {
+
+	private static final int BUCKETS = 10000;
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private final BitSet sampleDecisions;
+
+	private final int sampled;
+
+	public PercentageBasedSampler(SamplerProperties configuration) {
+		this(configuration.getPercentage());
+	}
+
+	public PercentageBasedSampler(float percentage) {
+		Assert.isTrue(percentage >= 0.0f && percentage <= 1.0f,
+				"percentage should be between 0.0 and 1.0 but was " + percentage);
+		this.sampled = Math.round(percentage * BUCKETS);
+		Assert.isTrue(percentage == 0.0f || this.sampled > 0, "percentage " + percentage
+				+ " is below the sampler's precision of " + (1.0f / BUCKETS));
+		this.sampleDecisions = randomBitSet(BUCKETS, this.sampled, new Random());
+	}
+
+	@Override
+	public boolean next(Void info) {
+		if (this.sampled == 0) {
+			return false;
+		}
+		if (this.sampled == BUCKETS) {
+			return true;
+		}
+		int index = this.counter.getAndIncrement() % BUCKETS;
+		if (index < 0) {
+			// counter overflowed
+			index += BUCKETS;
+		}
+		return this.sampleDecisions.get(index);
+	}
+
+	/**
+	 * Reservoir sampling of {@code cardinality} set bits out of {@code size}.
+	 */
+	static BitSet randomBitSet(int size, int cardinality, Random random) {
+		BitSet result = new BitSet(size);
+		int[] chosen = new int[cardinality];
+		int i;
+		for (i = 0; i < cardinality; i++) {
+			chosen[i] = i;
+			result.set(i);
+		}
+		for (; i < size; i++) {
+			int j = random.nextInt(i + 1);
+			if (j < cardinality) {
+				result.clear(chosen[j]);
+				result.set(i);
+				chosen[j] = i;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.util.Assert;
+
+/**
+ * Caps the number of new traces started per second in this JVM, so that traffic spikes
+ * do not turn into span spikes at the collector. Traces that are already in progress
+ * are always continued.
+ * <p>
+ * The token bucket holds one second worth of traces and refills continuously from
+ * {@link System#nanoTime()}. Its whole state is a single timestamp (the time at which
+ * the bucket would be full again) updated with compare-and-set, so the sampler never
+ * blocks.
+ */
+public class RateLimitingSampler implements Sampler<Void> {
+
+	private final long nanosPerTrace;
+
+	private final long capacityNanos;
+
+	private final AtomicLong fullAt;
+
+	public RateLimitingSampler(SamplerProperties configuration) {
+		this(configuration.getRate());
+	}
+
+	public RateLimitingSampler(int tracesPerSecond) {
+		Assert.isTrue(tracesPerSecond > 0,
+				"tracesPerSecond should be positive but was " + tracesPerSecond);
+		this.nanosPerTrace = TimeUnit.SECONDS.toNanos(1) / tracesPerSecond;
+		this.capacityNanos = this.nanosPerTrace * tracesPerSecond;
+		this.fullAt = new AtomicLong(nanoTime());
+	}
+
+	@Override
+	public boolean next(Void info) {
+		if (TraceContextHolder.isTracing()) {
+			return true;
+		}
+		long now = nanoTime();
+		while (true) {
+			long fullAt = this.fullAt.get();
+			// an empty bucket that refilled in the meantime starts again from now
+			long next = (fullAt - now > 0 ? fullAt : now) + this.nanosPerTrace;
+			if (next - now > this.capacityNanos) {
+				return false;
+			}
+			if (this.fullAt.compareAndSet(fullAt, next)) {
+				return true;
+			}
+		}
+	}
+
+	protected long nanoTime() {
+		return System.nanoTime();
+	}
+
+}
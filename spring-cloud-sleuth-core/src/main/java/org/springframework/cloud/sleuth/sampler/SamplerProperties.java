@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties("spring.sleuth.sampler")
+@Data
+public class SamplerProperties {
+	/**
+	 * Fraction of new traces to export, between 0.0 and 1.0 in steps of 0.0001.
+	 */
+	private float percentage = 0.1f;
+
+	/**
+	 * Derive the percentage decision from the trace id, so that all services agree.
+	 */
+	private boolean consistent = false;
+
+	/**
+	 * Maximum number of new traces to export per second.
+	 */
+	private int rate = 10;
+
+	/**
+	 * Spans per second the adaptive sampler aims for.
+	 */
+	private int budget = 100;
+
+	/**
+	 * Queued spans above which the adaptive sampler backs off.
+	 */
+	private int maxQueuedSpans = 1000;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties("spring.sleuth.sampler.tail")
+@Data
+public class TailSamplingProperties {
+	/**
+	 * Decide which traces to export once their local root span has closed.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Traces whose local root takes at least this many milliseconds are kept.
+	 */
+	private long latencyThreshold = 1000;
+
+	/**
+	 * Fraction of the remaining traces that is kept anyway.
+	 */
+	private float baseline = 0.01f;
+
+	/**
+	 * Maximum number of traces waiting for their local root to close.
+	 */
+	private int maxTraces = 1000;
+
+	/**
+	 * Maximum number of spans buffered per trace, further spans are dropped.
+	 */
+	private int maxSpansPerTrace = 100;
+
+	/**
+	 * Milliseconds after which a trace whose root did not close is evicted.
+	 */
+	private long maxAge = 60000;
+
+	/**
+	 * Traces with a span slower than this quantile of its name are kept, 0 to disable.
+	 */
+	private double outlierQuantile = 0.99;
+
+	/**
+	 * Maximum number of span names whose latency is tracked.
+	 */
+	private int maxNames = 1000;
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+
+/**
+ * Decides which traces to export once their local root span has closed. Spans released
+ * before the root are buffered per trace id. When the root closes the trace is passed
+ * to the reporters if the root was slow, any span has a
+ * {@code /http/response/status_code} of 500 or more, any span is a latency outlier for
+ * its name (see {@link LatencyOutlierDetector}), or the baseline sampler picks it, and
+ * dropped otherwise.
+ * <p>
+ * The buffer is bounded both in the number of traces and in the spans per trace. Traces
+ * whose root does not close within {@code maxAge}, or that are pushed out by newer
+ * traces, are evicted and counted. The buffer is split by trace id into independently
+ * locked stripes, each holding a share of {@code maxTraces}, so releases of unrelated
+ * traces rarely wait for each other. Only exportable spans are considered, so the head
+ * sampler should let through every trace that the tail stage may want to keep.
+ * <p>
+ * When a local root with a remote parent is kept, the remote parent is reported after
+ * it, so the server annotations this service added to it are exported with the trace.
+ */
+public class TailSamplingSpanListener implements SpanListener {
+
+	static final String STATUS_CODE = "/http/response/status_code";
+
+	private static final int MAX_STRIPES = 16;
+
+	private static final int MIN_TRACES_PER_STRIPE = 64;
+
+	private final long latencyThreshold;
+
+	private final Sampler<Void> baseline;
+
+	private final int maxSpansPerTrace;
+
+	private final long maxAgeNanos;
+
+	private final LatencyOutlierDetector outliers;
+
+	private final Stripe[] stripes;
+
+	private final AtomicLong keptTraces = new AtomicLong();
+
+	private final AtomicLong discardedTraces = new AtomicLong();
+
+	private final AtomicLong evictedTraces = new AtomicLong();
+
+	private final AtomicLong droppedSpans = new AtomicLong();
+
+	private volatile SpanReporter[] reporters = new SpanReporter[0];
+
+	public TailSamplingSpanListener(TailSamplingProperties configuration) {
+		this(configuration.getLatencyThreshold(),
+				new PercentageBasedSampler(configuration.getBaseline()),
+				configuration.getMaxTraces(), configuration.getMaxSpansPerTrace(),
+				configuration.getMaxAge(),
+				configuration.getOutlierQuantile() > 0
+						? new LatencyOutlierDetector(configuration.getOutlierQuantile(),
+								configuration.getMaxNames())
+						: null);
+	}
+
+	public TailSamplingSpanListener(long latencyThreshold, Sampler<Void> baseline,
+			int maxTraces, int maxSpansPerTrace, long maxAge) {
+		this(latencyThreshold, baseline, maxTraces, maxSpansPerTrace, maxAge, null);
+	}
+
+	/**
+	 * @param outliers detects slow spans, may be null
+	 */
+	public TailSamplingSpanListener(long latencyThreshold, Sampler<Void> baseline,
+			int maxTraces, int maxSpansPerTrace, long maxAge,
+			LatencyOutlierDetector outliers) {
+		this.latencyThreshold = latencyThreshold;
+		this.baseline = baseline;
+		this.stripes = stripes(maxTraces);
+		this.maxSpansPerTrace = maxSpansPerTrace;
+		this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAge);
+		this.outliers = outliers;
+	}
+
+	/**
+	 * Sets the reporters that receive the kept traces.
+	 */
+	public void setReporters(Collection<? extends SpanReporter> reporters) {
+		this.reporters = reporters != null ? reporters.toArray(new SpanReporter[0])
+				: new SpanReporter[0];
+	}
+
+	@Override
+	public void spanAcquired(Span parent, Span span) {
+	}
+
+	@Override
+	public void spanContinued(Span span) {
+	}
+
+	@Override
+	public void spanReleased(Span parent, Span span) {
+		if (!span.isExportable()) {
+			return;
+		}
+		boolean localRoot = parent == null || parent.isRemote();
+		boolean outlier = this.outliers != null && this.outliers.isOutlier(span);
+		Stripe stripe = stripe(span.getTraceId());
+		PendingTrace trace;
+		synchronized (stripe) {
+			long now = nanoTime();
+			evictExpired(stripe, now);
+			if (localRoot) {
+				trace = stripe.pending.remove(span.getTraceId());
+			}
+			else {
+				buffer(stripe, span, outlier, now);
+				return;
+			}
+		}
+		List<Span> spans = trace != null ? trace.spans : Collections.<Span>emptyList();
+		if (outlier || (trace != null && trace.outlier) || keep(span, spans)) {
+			this.keptTraces.incrementAndGet();
+			for (Span buffered : spans) {
+				report(buffered);
+			}
+			report(span);
+			if (parent != null && parent.isRemote() && parent.isExportable()) {
+				report(parent);
+			}
+		}
+		else {
+			this.discardedTraces.incrementAndGet();
+		}
+	}
+
+	public long getKeptTraces() {
+		return this.keptTraces.get();
+	}
+
+	public long getDiscardedTraces() {
+		return this.discardedTraces.get();
+	}
+
+	public long getEvictedTraces() {
+		return this.evictedTraces.get();
+	}
+
+	public long getDroppedSpans() {
+		return this.droppedSpans.get();
+	}
+
+	protected long nanoTime() {
+		return System.nanoTime();
+	}
+
+	private static Stripe[] stripes(int maxTraces) {
+		int count = 1;
+		while (count < MAX_STRIPES && (count * 2) * MIN_TRACES_PER_STRIPE <= maxTraces) {
+			count *= 2;
+		}
+		Stripe[] stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			// spread the remainder so the stripes add up to maxTraces
+			stripes[i] = new Stripe(maxTraces / count + (i < maxTraces % count ? 1 : 0));
+		}
+		return stripes;
+	}
+
+	private Stripe stripe(String traceId) {
+		int hash = traceId.hashCode();
+		hash ^= hash >>> 16;
+		return this.stripes[hash & (this.stripes.length - 1)];
+	}
+
+	private void buffer(Stripe stripe, Span span, boolean outlier, long now) {
+		PendingTrace trace = stripe.pending.get(span.getTraceId());
+		if (trace == null) {
+			if (stripe.pending.size() >= stripe.maxTraces) {
+				Iterator<PendingTrace> eldest = stripe.pending.values().iterator();
+				eldest.next();
+				eldest.remove();
+				this.evictedTraces.incrementAndGet();
+			}
+			trace = new PendingTrace(now);
+			stripe.pending.put(span.getTraceId(), trace);
+		}
+		trace.outlier |= outlier;
+		if (trace.spans.size() < this.maxSpansPerTrace) {
+			trace.spans.add(span);
+		}
+		else {
+			this.droppedSpans.incrementAndGet();
+		}
+	}
+
+	private void evictExpired(Stripe stripe, long now) {
+		for (Iterator<PendingTrace> iterator = stripe.pending.values().iterator(); iterator
+				.hasNext();) {
+			if (now - iterator.next().created < this.maxAgeNanos) {
+				return;
+			}
+			iterator.remove();
+			this.evictedTraces.incrementAndGet();
+		}
+	}
+
+	private boolean keep(Span root, List<Span> spans) {
+		if (root.getAccumulatedMillis() >= this.latencyThreshold) {
+			return true;
+		}
+		if (isError(root)) {
+			return true;
+		}
+		for (Span span : spans) {
+			if (isError(span)) {
+				return true;
+			}
+		}
+		return this.baseline.next(null);
+	}
+
+	private boolean isError(Span span) {
+		String status = span.getAnnotations().get(STATUS_CODE);
+		if (status == null) {
+			return false;
+		}
+		try {
+			return Integer.parseInt(status) >= 500;
+		}
+		catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private void report(Span span) {
+		for (SpanReporter reporter : this.reporters) {
+			reporter.report(span);
+		}
+	}
+
+	private static class Stripe {
+
+		// insertion ordered, so the eldest traces come first
+		private final LinkedHashMap<String, PendingTrace> pending = new LinkedHashMap<>();
+
+		private final int maxTraces;
+
+		Stripe(int maxTraces) {
+			this.maxTraces = maxTraces;
+		}
+
+	}
+
+	private static class PendingTrace {
+
+		private final long created;
+
+		private final List<Span> spans = new ArrayList<>();
+
+		private boolean outlier;
+
+		PendingTrace(long created) {
+			this.created = created;
+		}
+
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceIdSampler;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.cloud.sleuth.util.IdUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Samples a trace when its id, scrambled with the SplitMix64 finalizer, falls below a
+ * threshold derived from the configured percentage. Scrambling spreads ids with fixed
+ * bits (such as the halves of a UUID) evenly, so this samples the given share of traces,
+ * and every service that uses the same percentage makes the same decision for the same
+ * trace without relying on propagated headers. A service with a lower percentage samples
+ * a subset of the traces sampled by one with a higher percentage.
+ */
+public class TraceIdBasedSampler implements TraceIdSampler<Void> {
+
+	private final long threshold;
+
+	private final boolean always;
+
+	public TraceIdBasedSampler(SamplerProperties configuration) {
+		this(configuration.getPercentage());
+	}
+
+	public TraceIdBasedSampler(float percentage) {
+		Assert.isTrue(percentage >= 0.0f && percentage <= 1.0f,
+				"percentage should be between 0.0 and 1.0 but was " + percentage);
+		this.always = percentage == 1.0f;
+		this.threshold = (long) (Long.MAX_VALUE * (double) percentage);
+	}
+
+	/**
+	 * Decides on the trace of the current span, as there is no trace id before a trace
+	 * is started.
+	 */
+	@Override
+	public boolean next(Void info) {
+		Span span = TraceContextHolder.getCurrentSpan();
+		return span != null && isSampled(span.getTraceId());
+	}
+
+	public boolean isSampled(String traceId) {
+		return traceId != null && isSampled(IdUtils.hexToId(traceId));
+	}
+
+	@Override
+	public boolean isSampled(long traceId) {
+		return this.always || (mix(traceId) & Long.MAX_VALUE) < this.threshold;
+	}
+
+	static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+}
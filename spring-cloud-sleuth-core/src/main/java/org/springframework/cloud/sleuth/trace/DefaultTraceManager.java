@@ -18,20 +18,29 @@ package org.springframework.cloud.sleuth.trace;
 
 import static org.springframework.cloud.sleuth.util.ExceptionUtils.warn;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 
 import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.NoOpSpan;
 import org.springframework.cloud.sleuth.Sampler;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.TraceIdSampler;
 import org.springframework.cloud.sleuth.TraceManager;
-import org.springframework.cloud.sleuth.event.SpanAcquiredEvent;
-import org.springframework.cloud.sleuth.event.SpanContinuedEvent;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
+import org.springframework.cloud.sleuth.event.ApplicationEventSpanListener;
 import org.springframework.cloud.sleuth.instrument.TraceCallable;
 import org.springframework.cloud.sleuth.instrument.TraceRunnable;
 import org.springframework.cloud.sleuth.util.ExceptionUtils;
+import org.springframework.cloud.sleuth.util.IdUtils;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.util.IdGenerator;
 
 /**
@@ -43,13 +52,42 @@ public class DefaultTraceManager implements TraceManager {
 
 	private final IdGenerator idGenerator;
 
-	private final ApplicationEventPublisher publisher;
+	// ids straight from the default generator, without a UUID in between
+	private final ThreadLocalRandomIdGenerator randomIds;
 
+	private final SpanListener[] listeners;
+
+	private final SpanReporter[] reporters;
+
+	/**
+	 * Creates a trace manager that publishes span lifecycle changes as application
+	 * events (see {@link ApplicationEventSpanListener}).
+	 */
 	public DefaultTraceManager(Sampler<Void> defaultSampler, IdGenerator idGenerator,
 			ApplicationEventPublisher publisher) {
+		this(defaultSampler, idGenerator, Collections
+				.<SpanListener>singletonList(new ApplicationEventSpanListener(publisher)),
+				Collections.<SpanReporter>emptyList());
+	}
+
+	public DefaultTraceManager(Sampler<Void> defaultSampler, IdGenerator idGenerator,
+			Collection<? extends SpanListener> listeners,
+			Collection<? extends SpanReporter> reporters) {
 		this.defaultSampler = defaultSampler;
 		this.idGenerator = idGenerator;
-		this.publisher = publisher;
+		this.randomIds = idGenerator instanceof ThreadLocalRandomIdGenerator
+				? (ThreadLocalRandomIdGenerator) idGenerator : null;
+		this.listeners = sorted(listeners).toArray(new SpanListener[0]);
+		this.reporters = sorted(reporters).toArray(new SpanReporter[0]);
+	}
+
+	private static <T> List<T> sorted(Collection<? extends T> source) {
+		List<T> list = new ArrayList<>();
+		if (source != null) {
+			list.addAll(source);
+		}
+		AnnotationAwareOrderComparator.sort(list);
+		return list;
 	}
 
 	@Override
@@ -63,9 +101,25 @@ public class DefaultTraceManager implements TraceManager {
 					+ " tried to start a new Span " + "with parent " + parent.toString()
 					+ ", but there is already a " + "currentSpan " + currentSpan);
 		}
+		if (parent.isRemote() && parent.isExportable() && !isSampledByTraceId(parent)) {
+			// The caller should not have sampled this trace either, keep the trace id only
+			parent = new NoOpSpan(parent.getName(), parent.getTraceId());
+		}
 		return continueSpan(createChild(parent, name));
 	}
 
+	/**
+	 * @return false if the default sampler decides on trace ids and rejects the trace of
+	 * the given span
+	 */
+	private boolean isSampledByTraceId(Span span) {
+		if (!(this.defaultSampler instanceof TraceIdSampler)) {
+			return true;
+		}
+		return span.getTraceId() != null && ((TraceIdSampler<?>) this.defaultSampler)
+				.isSampled(IdUtils.hexToId(span.getTraceId()));
+	}
+
 	@Override
 	public Trace startSpan(String name) {
 		return this.startSpan(name, this.defaultSampler, null);
@@ -74,15 +128,19 @@ public class DefaultTraceManager implements TraceManager {
 	@Override
 	public <T> Trace startSpan(String name, Sampler<T> s, T info) {
 		Span span = null;
-		if (isTracing() || s.next(info)) {
+		if (!isTracing() && s instanceof TraceIdSampler) {
+			// The decision depends on the trace id, so create that first
+			long traceId = generateId();
+			String id = IdUtils.idToHex(traceId);
+			span = ((TraceIdSampler<?>) s).isSampled(traceId) ? createRoot(name, id)
+					: new NoOpSpan(name, id);
+		}
+		else if (isTracing() || s.next(info)) {
 			span = createChild(getCurrentSpan(), name);
 		}
 		else {
 			// Non-exportable so we keep the trace but not other data
-			String id = createId();
-			span = MilliSpan.builder().begin(System.currentTimeMillis()).name(name)
-					.traceId(id).spanId(id).exportable(false).build();
-			this.publisher.publishEvent(new SpanAcquiredEvent(this, span));
+			span = new NoOpSpan(name, createId());
 		}
 		return continueSpan(span);
 	}
@@ -128,15 +186,14 @@ public class DefaultTraceManager implements TraceManager {
 		else {
 			if (span != null) {
 				span.stop();
-				if (savedTrace != null
-						&& span.getParents().contains(savedTrace.getSpan().getSpanId())) {
-					this.publisher.publishEvent(
-							new SpanReleasedEvent(this, savedTrace.getSpan(), span));
+				if (savedTrace != null && (!span.isExportable() || span.getParents()
+						.contains(savedTrace.getSpan().getSpanId()))) {
+					released(savedTrace.getSpan(), span);
 					TraceContextHolder.setCurrentTrace(savedTrace);
 				}
 				else {
 					if (!span.isRemote()) {
-						this.publisher.publishEvent(new SpanReleasedEvent(this, span));
+						released(null, span);
 					}
 					TraceContextHolder.removeCurrentTrace();
 				}
@@ -149,34 +206,80 @@ public class DefaultTraceManager implements TraceManager {
 	}
 
 	protected Span createChild(Span parent, String name) {
+		if (parent != null && !parent.isExportable()) {
+			// Children of unsampled spans are not sampled either
+			if (TraceContextHolder.getCurrentSpan() == null) {
+				TraceContextHolder.push(parent);
+			}
+			return new NoOpSpan(name, parent.getTraceId());
+		}
 		String id = createId();
 		if (parent == null) {
-			MilliSpan span = MilliSpan.builder().begin(System.currentTimeMillis())
-					.name(name).traceId(id).spanId(id).build();
-			this.publisher.publishEvent(new SpanAcquiredEvent(this, span));
-			return span;
+			return createRoot(name, id);
 		}
 		else {
-			if (TraceContextHolder.getCurrentTrace() == null) {
-				Trace trace = createTrace(null, parent);
-				TraceContextHolder.setCurrentTrace(trace);
+			if (TraceContextHolder.getCurrentSpan() == null) {
+				TraceContextHolder.push(parent);
 			}
-			MilliSpan span = MilliSpan.builder().begin(System.currentTimeMillis())
-					.name(name).traceId(parent.getTraceId()).parent(parent.getSpanId())
-					.spanId(id).processId(parent.getProcessId()).build();
-			this.publisher.publishEvent(new SpanAcquiredEvent(this, parent, span));
+			MilliSpan span = MilliSpan.child(name, parent, id);
+			acquired(parent, span);
 			return span;
 		}
 	}
 
+	private Span createRoot(String name, String id) {
+		MilliSpan span = MilliSpan.root(name, id);
+		acquired(null, span);
+		return span;
+	}
+
+	private void acquired(Span parent, Span span) {
+		for (SpanListener listener : this.listeners) {
+			listener.spanAcquired(parent, span);
+		}
+	}
+
+	private void released(Span parent, Span span) {
+		// listeners may still annotate the span before it is handed to the reporters
+		for (SpanListener listener : this.listeners) {
+			listener.spanReleased(parent, span);
+		}
+		if (span.isExportable()) {
+			report(span);
+			if (parent != null && parent.isRemote() && parent.isExportable()) {
+				// the remote parent carries this service's server annotations and is
+				// exported together with its local root
+				report(parent);
+			}
+		}
+	}
+
+	private void report(Span span) {
+		for (SpanReporter reporter : this.reporters) {
+			reporter.report(span);
+		}
+	}
+
 	private String createId() {
-		return this.idGenerator.generateId().toString();
+		return IdUtils.idToHex(generateId());
+	}
+
+	private long generateId() {
+		if (this.randomIds != null) {
+			return this.randomIds.generateLongId();
+		}
+		// a random UUID has fixed version and variant bits in each half, folding the
+		// halves keeps all 64 bits random
+		UUID uuid = this.idGenerator.generateId();
+		return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
 	}
 
 	@Override
 	public Trace continueSpan(Span span) {
 		if (span != null) {
-			this.publisher.publishEvent(new SpanContinuedEvent(this, span));
+			for (SpanListener listener : this.listeners) {
+				listener.spanContinued(span);
+			}
 		}
 		Trace trace = createTrace(TraceContextHolder.getCurrentTrace(), span);
 		TraceContextHolder.setCurrentTrace(trace);
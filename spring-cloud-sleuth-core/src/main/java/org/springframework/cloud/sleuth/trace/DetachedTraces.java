@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import java.util.Map;
+
+import org.slf4j.MDC;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Closes traces that were detached, from whatever thread finishes them, e.g. the one
+ * that completes an asynchronous request. Works with any {@link TraceManager}.
+ */
+public abstract class DetachedTraces {
+
+	private static final boolean MDC_PRESENT = ClassUtils.isPresent("org.slf4j.MDC",
+			DetachedTraces.class.getClassLoader());
+
+	/**
+	 * Closes a detached trace. The trace does not need to be current: it is made current
+	 * while it is closed, and the current trace and logging context of the calling thread
+	 * are restored afterwards.
+	 *
+	 * @param traceManager the trace manager that closes the trace
+	 * @param trace the detached trace to close, may be null
+	 * @return the saved trace if there was one before the trace started (null otherwise)
+	 */
+	public static Trace close(TraceManager traceManager, Trace trace) {
+		if (trace == null) {
+			return null;
+		}
+		Trace previous = TraceContextHolder.getCurrentTrace();
+		// listeners may put the ids of the closed span's parent in the MDC
+		Map<String, String> mdc = MDC_PRESENT ? Mdc.copy() : null;
+		TraceContextHolder.setCurrentTrace(trace);
+		try {
+			return traceManager.close(trace);
+		}
+		finally {
+			if (previous != null) {
+				TraceContextHolder.setCurrentTrace(previous);
+			}
+			else {
+				TraceContextHolder.removeCurrentTrace();
+			}
+			if (MDC_PRESENT) {
+				Mdc.restore(mdc);
+			}
+		}
+	}
+
+	/**
+	 * Only loaded when SLF4J is on the classpath.
+	 */
+	private static class Mdc {
+
+		static Map<String, String> copy() {
+			return MDC.getCopyOfContextMap();
+		}
+
+		static void restore(Map<String, String> context) {
+			if (context != null) {
+				MDC.setContextMap(context);
+			}
+			else {
+				MDC.clear();
+			}
+		}
+
+	}
+
+}
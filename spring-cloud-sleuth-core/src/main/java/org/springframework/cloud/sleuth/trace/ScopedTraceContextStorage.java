@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.util.ArrayMap;
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * {@link TraceContextStorage} meant for large numbers of short lived threads (e.g.
+ * virtual threads). The current trace and all scoped traces of a thread share a single
+ * carrier, so a thread holds at most one entry in its {@link ThreadLocal} map, and the
+ * carrier is dropped as soon as the thread leaves its last trace and scope. It behaves
+ * like a scoped value binding: state only exists while a trace is in scope.
+ */
+public class ScopedTraceContextStorage implements TraceContextStorage {
+
+	private final ThreadLocal<Carrier> carriers = new NamedThreadLocal<>(
+			"Trace Context Carrier");
+
+	@Override
+	public Trace getCurrentTrace() {
+		Carrier carrier = this.carriers.get();
+		return carrier != null ? carrier.current : null;
+	}
+
+	@Override
+	public void setCurrentTrace(Trace trace) {
+		if (trace == null) {
+			removeCurrentTrace();
+			return;
+		}
+		carrier().current = trace;
+	}
+
+	@Override
+	public void removeCurrentTrace() {
+		Carrier carrier = this.carriers.get();
+		if (carrier != null) {
+			carrier.current = null;
+			releaseIfEmpty(carrier);
+		}
+	}
+
+	@Override
+	public Span getCurrentSpan() {
+		Trace trace = getCurrentTrace();
+		return trace != null ? trace.getSpan() : null;
+	}
+
+	@Override
+	public void push(Span span) {
+		Carrier carrier = carrier();
+		carrier.current = new Trace(carrier.current, span);
+	}
+
+	@Override
+	public Span pop() {
+		Trace trace = getCurrentTrace();
+		if (trace == null) {
+			return null;
+		}
+		setCurrentTrace(trace.getSavedTrace());
+		return trace.getSpan();
+	}
+
+	@Override
+	public Trace getScopedTrace(Object scope) {
+		Carrier carrier = this.carriers.get();
+		return carrier != null && carrier.scoped != null ? carrier.scoped.get(scope)
+				: null;
+	}
+
+	@Override
+	public void setScopedTrace(Object scope, Trace trace) {
+		if (trace == null) {
+			removeScopedTrace(scope);
+			return;
+		}
+		Carrier carrier = carrier();
+		if (carrier.scoped == null) {
+			carrier.scoped = new ArrayMap<>();
+		}
+		carrier.scoped.put(scope, trace);
+	}
+
+	@Override
+	public Trace removeScopedTrace(Object scope) {
+		Carrier carrier = this.carriers.get();
+		if (carrier == null || carrier.scoped == null) {
+			return null;
+		}
+		Trace trace = carrier.scoped.remove(scope);
+		releaseIfEmpty(carrier);
+		return trace;
+	}
+
+	private Carrier carrier() {
+		Carrier carrier = this.carriers.get();
+		if (carrier == null) {
+			carrier = new Carrier();
+			this.carriers.set(carrier);
+		}
+		return carrier;
+	}
+
+	private void releaseIfEmpty(Carrier carrier) {
+		if (carrier.current == null
+				&& (carrier.scoped == null || carrier.scoped.isEmpty())) {
+			this.carriers.remove();
+		}
+	}
+
+	private static class Carrier {
+
+		private Trace current;
+
+		private ArrayMap<Object, Trace> scoped;
+
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.trace;
+
+import java.util.Arrays;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.util.ArrayMap;
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * {@link TraceContextStorage} that keeps the nested spans of a thread in a reusable
+ * array stack. Each frame holds a span, its parent link is the frame below it. A
+ * {@link Trace} for a frame is only created when somebody asks for it, and then kept
+ * with the frame, so {@link #push(Span)} and {@link #pop()} do not allocate.
+ * <p>
+ * Entering a trace whose saved trace is the current one pushes it, going back to an
+ * enclosing trace (on close or detach) pops down to it. The per-thread stack stays in
+ * place between requests, so pooled threads do not add and remove a
+ * {@link ThreadLocal} entry for every trace.
+ */
+public class StackTraceContextStorage implements TraceContextStorage {
+
+	private final ThreadLocal<SpanStack> stacks = new NamedThreadLocal<SpanStack>(
+			"Trace Context Stack") {
+		@Override
+		protected SpanStack initialValue() {
+			return new SpanStack();
+		}
+	};
+
+	@Override
+	public Trace getCurrentTrace() {
+		return this.stacks.get().currentTrace();
+	}
+
+	@Override
+	public Span getCurrentSpan() {
+		return this.stacks.get().peek();
+	}
+
+	@Override
+	public void setCurrentTrace(Trace trace) {
+		if (trace == null) {
+			removeCurrentTrace();
+			return;
+		}
+		this.stacks.get().enter(trace);
+	}
+
+	@Override
+	public void removeCurrentTrace() {
+		this.stacks.get().clear();
+	}
+
+	@Override
+	public void push(Span span) {
+		this.stacks.get().push(span, null);
+	}
+
+	@Override
+	public Span pop() {
+		return this.stacks.get().pop();
+	}
+
+	@Override
+	public Trace getScopedTrace(Object scope) {
+		return this.stacks.get().getScoped(scope);
+	}
+
+	@Override
+	public void setScopedTrace(Object scope, Trace trace) {
+		this.stacks.get().setScoped(scope, trace);
+	}
+
+	@Override
+	public Trace removeScopedTrace(Object scope) {
+		return this.stacks.get().setScoped(scope, null);
+	}
+
+	static class SpanStack {
+
+		private static final int INITIAL_CAPACITY = 8;
+
+		private static final int MAX_RETAINED_CAPACITY = 64;
+
+		private Span[] spans = new Span[INITIAL_CAPACITY];
+
+		// created on demand, a null entry has not been asked for yet
+		private Trace[] traces = new Trace[INITIAL_CAPACITY];
+
+		private int depth;
+
+		private ArrayMap<Object, Trace> scoped;
+
+		Span peek() {
+			return this.depth == 0 ? null : this.spans[this.depth - 1];
+		}
+
+		Trace currentTrace() {
+			return this.depth == 0 ? null : trace(this.depth - 1);
+		}
+
+		void enter(Trace trace) {
+			Span span = trace.getSpan();
+			Trace saved = trace.getSavedTrace();
+			if (this.depth > 0 && saved != null
+					&& saved.getSpan() == this.spans[this.depth - 1]) {
+				push(span, trace);
+				return;
+			}
+			for (int i = this.depth - 1; i >= 0; i--) {
+				if (this.spans[i] == span && (this.traces[i] == trace
+						|| (i == 0 ? saved == null
+								: saved != null && saved.getSpan() == this.spans[i - 1]))) {
+					popTo(i + 1);
+					this.traces[i] = trace;
+					return;
+				}
+			}
+			// Not related to the current stack: start over
+			clear();
+			push(span, trace);
+		}
+
+		void push(Span span, Trace trace) {
+			if (this.depth == this.spans.length) {
+				this.spans = Arrays.copyOf(this.spans, this.depth * 2);
+				this.traces = Arrays.copyOf(this.traces, this.depth * 2);
+			}
+			this.spans[this.depth] = span;
+			this.traces[this.depth] = trace;
+			this.depth++;
+		}
+
+		Span pop() {
+			if (this.depth == 0) {
+				return null;
+			}
+			Span span = this.spans[this.depth - 1];
+			Trace trace = this.traces[this.depth - 1];
+			popTo(this.depth - 1);
+			if (this.depth == 0 && trace != null && trace.getSavedTrace() != null) {
+				// the bottom frame was entered with a chain from elsewhere
+				Trace saved = trace.getSavedTrace();
+				push(saved.getSpan(), saved);
+			}
+			return span;
+		}
+
+		void clear() {
+			if (this.spans.length > MAX_RETAINED_CAPACITY) {
+				this.spans = new Span[INITIAL_CAPACITY];
+				this.traces = new Trace[INITIAL_CAPACITY];
+			}
+			else {
+				popTo(0);
+			}
+			this.depth = 0;
+		}
+
+		Trace getScoped(Object scope) {
+			return this.scoped != null ? this.scoped.get(scope) : null;
+		}
+
+		Trace setScoped(Object scope, Trace trace) {
+			if (trace == null) {
+				return this.scoped != null ? this.scoped.remove(scope) : null;
+			}
+			if (this.scoped == null) {
+				this.scoped = new ArrayMap<>();
+			}
+			return this.scoped.put(scope, trace);
+		}
+
+		/**
+		 * Returns the trace of a frame, creating it and any missing ones below it.
+		 */
+		private Trace trace(int index) {
+			if (this.traces[index] != null) {
+				return this.traces[index];
+			}
+			int first = index;
+			while (first > 0 && this.traces[first - 1] == null) {
+				first--;
+			}
+			Trace saved = first > 0 ? this.traces[first - 1] : null;
+			for (int i = first; i <= index; i++) {
+				saved = new Trace(saved, this.spans[i]);
+				this.traces[i] = saved;
+			}
+			return saved;
+		}
+
+		private void popTo(int depth) {
+			Arrays.fill(this.spans, depth, this.depth, null);
+			Arrays.fill(this.traces, depth, this.depth, null);
+			this.depth = depth;
+		}
+
+	}
+
+}
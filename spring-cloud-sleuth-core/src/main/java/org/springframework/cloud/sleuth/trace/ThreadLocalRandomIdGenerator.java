@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.trace;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.util.IdGenerator;
+
+/**
+ * An {@link IdGenerator} that builds 128-bit ids from two {@link ThreadLocalRandom}
+ * longs. Unlike {@link UUID#randomUUID()} it does not share a {@code SecureRandom}
+ * between threads, so it does not contend when many requests start spans at once.
+ * The ids are not suitable for anything security related.
+ */
+public class ThreadLocalRandomIdGenerator implements IdGenerator {
+
+	@Override
+	public UUID generateId() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return new UUID(random.nextLong(), random.nextLong());
+	}
+
+	/**
+	 * Returns a random 64-bit id without creating a {@link UUID}, used for span and
+	 * trace ids.
+	 */
+	public long generateLongId() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.trace;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * Default {@link TraceContextStorage} that keeps the current {@link Trace} (and through
+ * it the chain of saved traces) in a {@link ThreadLocal}.
+ */
+public class ThreadLocalTraceContextStorage implements TraceContextStorage {
+
+	private final ThreadLocal<Trace> currentTrace = new NamedThreadLocal<>(
+			"Trace Context");
+
+	private final ThreadLocal<Map<Object, Trace>> scopedTraces = new NamedThreadLocal<>(
+			"Scoped Trace Context");
+
+	@Override
+	public Trace getCurrentTrace() {
+		return this.currentTrace.get();
+	}
+
+	@Override
+	public void setCurrentTrace(Trace trace) {
+		this.currentTrace.set(trace);
+	}
+
+	@Override
+	public void removeCurrentTrace() {
+		this.currentTrace.remove();
+	}
+
+	@Override
+	public Span getCurrentSpan() {
+		Trace trace = this.currentTrace.get();
+		return trace != null ? trace.getSpan() : null;
+	}
+
+	@Override
+	public void push(Span span) {
+		this.currentTrace.set(new Trace(this.currentTrace.get(), span));
+	}
+
+	@Override
+	public Span pop() {
+		Trace trace = this.currentTrace.get();
+		if (trace == null) {
+			return null;
+		}
+		if (trace.getSavedTrace() != null) {
+			this.currentTrace.set(trace.getSavedTrace());
+		}
+		else {
+			this.currentTrace.remove();
+		}
+		return trace.getSpan();
+	}
+
+	@Override
+	public Trace getScopedTrace(Object scope) {
+		Map<Object, Trace> traces = this.scopedTraces.get();
+		return traces != null ? traces.get(scope) : null;
+	}
+
+	@Override
+	public void setScopedTrace(Object scope, Trace trace) {
+		if (trace == null) {
+			removeScopedTrace(scope);
+			return;
+		}
+		Map<Object, Trace> traces = this.scopedTraces.get();
+		if (traces == null) {
+			traces = new HashMap<>();
+			this.scopedTraces.set(traces);
+		}
+		traces.put(scope, trace);
+	}
+
+	@Override
+	public Trace removeScopedTrace(Object scope) {
+		Map<Object, Trace> traces = this.scopedTraces.get();
+		if (traces == null) {
+			return null;
+		}
+		Trace trace = traces.remove(scope);
+		if (traces.isEmpty()) {
+			this.scopedTraces.remove();
+		}
+		return trace;
+	}
+
+}
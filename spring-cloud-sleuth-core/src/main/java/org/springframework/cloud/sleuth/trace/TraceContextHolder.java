@@ -18,43 +18,77 @@ package org.springframework.cloud.sleuth.trace;
 
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
-import org.springframework.core.NamedThreadLocal;
+import org.springframework.util.Assert;
 
 import lombok.extern.apachecommons.CommonsLog;
 
 /**
+ * Static access to the current {@link Trace}. Where the trace is kept is decided by the
+ * configured {@link TraceContextStorage}, a {@link ThreadLocalTraceContextStorage} by
+ * default.
+ *
  * @author Spencer Gibb
  */
 @CommonsLog
 public class TraceContextHolder {
 
-	private static final ThreadLocal<Trace> currentTrace = new NamedThreadLocal<>("Trace Context");
+	private static volatile TraceContextStorage storage = new ThreadLocalTraceContextStorage();
+
+	public static TraceContextStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Replaces the storage for all threads. Should only be called on startup, before any
+	 * trace has been started.
+	 */
+	public static void setStorage(TraceContextStorage storage) {
+		Assert.notNull(storage, "storage can not be null");
+		TraceContextHolder.storage = storage;
+	}
 
 	public static Trace getCurrentTrace() {
-		return currentTrace.get();
+		return storage.getCurrentTrace();
 	}
 
 	public static Span getCurrentSpan() {
-		return isTracing() ? currentTrace.get().getSpan() : null;
+		return storage.getCurrentSpan();
 	}
 
 	public static void setCurrentTrace(Trace trace) {
 		// backwards compatibility
 		if (trace == null) {
-			currentTrace.remove();
+			storage.removeCurrentTrace();
 			return;
 		}
 		if (log.isTraceEnabled()) {
 			log.trace("Setting current trace " + trace);
 		}
-		currentTrace.set(trace);
+		storage.setCurrentTrace(trace);
 	}
 
 	public static void removeCurrentTrace() {
-		currentTrace.remove();
+		storage.removeCurrentTrace();
+	}
+
+	/**
+	 * Enters a scope for the span, nested in the current one, without notifying any
+	 * listener (see {@link org.springframework.cloud.sleuth.TraceManager#continueSpan}
+	 * for that). Depending on the storage no {@link Trace} is created.
+	 */
+	public static void push(Span span) {
+		storage.push(span);
+	}
+
+	/**
+	 * Leaves the scope entered with {@link #push(Span)}.
+	 * @return the span of the scope that was left
+	 */
+	public static Span pop() {
+		return storage.pop();
 	}
 
 	public static boolean isTracing() {
-		return currentTrace.get() != null;
+		return storage.getCurrentTrace() != null;
 	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.trace;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+
+/**
+ * Strategy for storing the current {@link Trace} of the running thread. Used by
+ * {@link TraceContextHolder}, {@link DefaultTraceManager} and the instrumentation.
+ * <p>
+ * The current trace can be replaced as a whole, or scopes can be pushed and popped,
+ * which lets implementations avoid creating a {@link Trace} for every scope.
+ * <p>
+ * Besides the current trace, instrumentation can keep traces under a scope key for
+ * the duration of a unit of work, e.g. to restore the original trace after a message
+ * has been handled.
+ */
+public interface TraceContextStorage {
+
+	/**
+	 * @return the current trace, or null if there is none
+	 */
+	Trace getCurrentTrace();
+
+	/**
+	 * Makes the given trace the current one.
+	 */
+	void setCurrentTrace(Trace trace);
+
+	/**
+	 * Clears the current trace.
+	 */
+	void removeCurrentTrace();
+
+	/**
+	 * @return the span of the current trace, or null if there is none
+	 */
+	Span getCurrentSpan();
+
+	/**
+	 * Enters a scope for the span, nested in the current one.
+	 */
+	void push(Span span);
+
+	/**
+	 * Leaves the current scope, the enclosing one becomes current again.
+	 * @return the span of the scope that was left, or null if there was none
+	 */
+	Span pop();
+
+	/**
+	 * @return the trace kept under the given scope key, or null if there is none
+	 */
+	Trace getScopedTrace(Object scope);
+
+	/**
+	 * Keeps a trace under the given scope key. A null trace removes the key.
+	 */
+	void setScopedTrace(Object scope, Trace trace);
+
+	/**
+	 * Removes the trace kept under the given scope key.
+	 * @return the removed trace, or null if there was none
+	 */
+	Trace removeScopedTrace(Object scope);
+
+}
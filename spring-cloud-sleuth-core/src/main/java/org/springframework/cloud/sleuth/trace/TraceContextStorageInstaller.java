@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Installs a {@link TraceContextStorage} in {@link TraceContextHolder} for the lifetime
+ * of an application context. The storage that was installed before is restored when
+ * the context closes, so several contexts in one JVM (e.g. in a test suite) do not
+ * leave their storage behind for each other.
+ */
+public class TraceContextStorageInstaller implements InitializingBean, DisposableBean {
+
+	private final TraceContextStorage storage;
+
+	private TraceContextStorage previous;
+
+	public TraceContextStorageInstaller(TraceContextStorage storage) {
+		this.storage = storage;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.previous = TraceContextHolder.getStorage();
+		TraceContextHolder.setStorage(this.storage);
+	}
+
+	@Override
+	public void destroy() {
+		// only if no other context has installed its storage since
+		if (TraceContextHolder.getStorage() == this.storage && this.previous != null) {
+			TraceContextHolder.setStorage(this.previous);
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Insertion ordered map that keeps its keys and values next to each other in a single
+ * array. Lookups are linear, which is cheaper than hashing for the few dozen entries
+ * a span typically carries. Not thread safe.
+ */
+public class ArrayMap<K, V> extends AbstractMap<K, V> {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private Object[] table;
+
+	private int size;
+
+	private transient Map<K, V> readOnlyView;
+
+	private transient Set<Entry<K, V>> entrySet;
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) this.table[index + 1];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			V previous = (V) this.table[index + 1];
+			this.table[index + 1] = value;
+			return previous;
+		}
+		if (this.table == null) {
+			this.table = new Object[INITIAL_CAPACITY * 2];
+		}
+		else if (this.size * 2 == this.table.length) {
+			this.table = Arrays.copyOf(this.table, this.table.length * 2);
+		}
+		this.table[this.size * 2] = key;
+		this.table[this.size * 2 + 1] = value;
+		this.size++;
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		V previous = (V) this.table[index + 1];
+		removeAt(index);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		if (this.table != null) {
+			Arrays.fill(this.table, 0, this.size * 2, null);
+		}
+		this.size = 0;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	/**
+	 * @return an unmodifiable view of this map, created once and then reused
+	 */
+	public Map<K, V> readOnly() {
+		if (this.readOnlyView == null) {
+			this.readOnlyView = Collections.unmodifiableMap(this);
+		}
+		return this.readOnlyView;
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < this.size * 2; i += 2) {
+			if (ObjectUtils.nullSafeEquals(key, this.table[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int index) {
+		int end = this.size * 2;
+		System.arraycopy(this.table, index + 2, this.table, index, end - index - 2);
+		this.table[end - 2] = null;
+		this.table[end - 1] = null;
+		this.size--;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public int size() {
+			return ArrayMap.this.size;
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new Iterator<Entry<K, V>>() {
+
+				private int next = 0;
+
+				private int last = -1;
+
+				@Override
+				public boolean hasNext() {
+					return this.next < ArrayMap.this.size * 2;
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public Entry<K, V> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					this.last = this.next;
+					this.next += 2;
+					return new SimpleImmutableEntry<>((K) ArrayMap.this.table[this.last],
+							(V) ArrayMap.this.table[this.last + 1]);
+				}
+
+				@Override
+				public void remove() {
+					if (this.last < 0) {
+						throw new IllegalStateException();
+					}
+					removeAt(this.last);
+					this.next = this.last;
+					this.last = -1;
+				}
+			};
+		}
+
+	}
+
+}
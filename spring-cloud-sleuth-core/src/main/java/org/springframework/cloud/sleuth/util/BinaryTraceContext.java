@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.util;
+
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Reads and writes the binary alternative to the separate trace headers of messages.
+ * The layout is fixed:
+ * <ul>
+ * <li>1 byte version, currently 0</li>
+ * <li>1 byte flags: sampled, has parent, has 128-bit trace id</li>
+ * <li>8 bytes trace id, the low 64 bits of 128-bit ids</li>
+ * <li>8 bytes span id, zero if not sampled</li>
+ * <li>8 bytes parent id, zero if there is no parent</li>
+ * <li>8 bytes high 64 bits of the trace id, only for 128-bit trace ids</li>
+ * </ul>
+ * so a value is 26 or 34 bytes long. Ids are big endian.
+ */
+public abstract class BinaryTraceContext {
+
+	private static final byte VERSION = 0;
+
+	private static final int SAMPLED = 1;
+
+	private static final int HAS_PARENT = 2;
+
+	private static final int HAS_TRACE_ID_HIGH = 4;
+
+	private static final int TRACE_ID_OFFSET = 2;
+
+	private static final int SPAN_ID_OFFSET = 10;
+
+	private static final int PARENT_ID_OFFSET = 18;
+
+	private static final int TRACE_ID_HIGH_OFFSET = 26;
+
+	private static final int LENGTH = 26;
+
+	private static final int LENGTH_WITH_TRACE_ID_HIGH = 34;
+
+	private static final int ID_LENGTH = 16;
+
+	/**
+	 * @return the encoded context of the span, or null if its ids are not hex ids and
+	 * the separate headers have to be used
+	 */
+	public static byte[] write(Span span) {
+		String traceId = span.getTraceId();
+		boolean highBits = traceId != null && traceId.length() == 2 * ID_LENGTH;
+		if (!(highBits ? IdUtils.isHex(traceId, 0, 2 * ID_LENGTH) : isId(traceId))) {
+			return null;
+		}
+		boolean sampled = span.isExportable();
+		List<String> parents = span.getParents();
+		String parentId = !sampled || parents == null || parents.isEmpty() ? null
+				: parents.get(0);
+		if ((sampled && !isId(span.getSpanId()))
+				|| (parentId != null && !isId(parentId))) {
+			return null;
+		}
+		byte[] value = new byte[highBits ? LENGTH_WITH_TRACE_ID_HIGH : LENGTH];
+		value[0] = VERSION;
+		value[1] = (byte) ((sampled ? SAMPLED : 0) | (parentId != null ? HAS_PARENT : 0)
+				| (highBits ? HAS_TRACE_ID_HIGH : 0));
+		int length = traceId.length();
+		writeLong(value, TRACE_ID_OFFSET,
+				IdUtils.parse(traceId, length - ID_LENGTH, length, 0L));
+		if (sampled) {
+			writeLong(value, SPAN_ID_OFFSET,
+					IdUtils.parse(span.getSpanId(), 0, ID_LENGTH, 0L));
+		}
+		if (parentId != null) {
+			writeLong(value, PARENT_ID_OFFSET, IdUtils.parse(parentId, 0, ID_LENGTH, 0L));
+		}
+		if (highBits) {
+			writeLong(value, TRACE_ID_HIGH_OFFSET,
+					IdUtils.parse(traceId, 0, ID_LENGTH, 0L));
+		}
+		return value;
+	}
+
+	/**
+	 * @return true if the value is a context this class can read, the other methods may
+	 * only be called on those
+	 */
+	public static boolean isValid(byte[] value) {
+		if (value == null || value.length < LENGTH || value[0] != VERSION) {
+			return false;
+		}
+		return value.length == ((value[1] & HAS_TRACE_ID_HIGH) != 0
+				? LENGTH_WITH_TRACE_ID_HIGH : LENGTH);
+	}
+
+	public static String getTraceId(byte[] value) {
+		String low = IdUtils.idToHex(readLong(value, TRACE_ID_OFFSET));
+		if ((value[1] & HAS_TRACE_ID_HIGH) == 0) {
+			return low;
+		}
+		return IdUtils.idToHex(readLong(value, TRACE_ID_HIGH_OFFSET)) + low;
+	}
+
+	/**
+	 * @return the span id, null if the trace is not sampled
+	 */
+	public static String getSpanId(byte[] value) {
+		return isSampled(value) ? IdUtils.idToHex(readLong(value, SPAN_ID_OFFSET))
+				: null;
+	}
+
+	/**
+	 * @return the parent span id, null if there is none
+	 */
+	public static String getParentId(byte[] value) {
+		return (value[1] & HAS_PARENT) != 0
+				? IdUtils.idToHex(readLong(value, PARENT_ID_OFFSET)) : null;
+	}
+
+	public static boolean isSampled(byte[] value) {
+		return (value[1] & SAMPLED) != 0;
+	}
+
+	private static boolean isId(String id) {
+		return id != null && id.length() == ID_LENGTH && IdUtils.isHex(id, 0, ID_LENGTH);
+	}
+
+	private static void writeLong(byte[] value, int offset, long id) {
+		for (int i = 7; i >= 0; i--) {
+			value[offset + i] = (byte) id;
+			id >>>= 8;
+		}
+	}
+
+	private static long readLong(byte[] value, int offset) {
+		long id = 0;
+		for (int i = 0; i < 8; i++) {
+			id = (id << 8) | (value[offset + i] & 0xff);
+		}
+		return id;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.util;
+
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Reads and writes the single header alternative to the separate trace headers,
+ * {@code traceid-spanid-sampled[-parentid]}, with 16 hex character ids and
+ * {@code 1} or {@code 0} for the sampled flag, e.g.
+ * {@code 463ac35c9f6413ad-a2fb4a1d1a96d312-1-0020000000000001}. Unsampled traces
+ * carry a zero span id.
+ * <p>
+ * Values are validated in place and only the ids that are asked for are copied out of
+ * the header value.
+ */
+public abstract class CompactTraceHeader {
+
+	private static final int ID_LENGTH = 16;
+
+	private static final int SPAN_ID_OFFSET = ID_LENGTH + 1;
+
+	private static final int SAMPLED_OFFSET = SPAN_ID_OFFSET + ID_LENGTH + 1;
+
+	private static final int PARENT_ID_OFFSET = SAMPLED_OFFSET + 2;
+
+	private static final int LENGTH = SAMPLED_OFFSET + 1;
+
+	private static final int LENGTH_WITH_PARENT = PARENT_ID_OFFSET + ID_LENGTH;
+
+	private static final char[] ZERO_ID = "0000000000000000".toCharArray();
+
+	/**
+	 * @return the header value for the span, or null if its ids are not 16 character
+	 * hex ids and the separate headers have to be used
+	 */
+	public static String write(Span span) {
+		if (!span.isExportable()) {
+			return write(span.getTraceId(), null, null, false);
+		}
+		List<String> parents = span.getParents();
+		String parentId = parents == null || parents.isEmpty() ? null : parents.get(0);
+		return write(span.getTraceId(), span.getSpanId(), parentId, true);
+	}
+
+	/**
+	 * @return the header value, or null if one of the ids is not a 16 character hex id
+	 */
+	public static String write(String traceId, String spanId, String parentId,
+			boolean sampled) {
+		if (!isId(traceId) || (sampled && !isId(spanId))
+				|| (parentId != null && !isId(parentId))) {
+			return null;
+		}
+		char[] value = new char[parentId == null ? LENGTH : LENGTH_WITH_PARENT];
+		traceId.getChars(0, ID_LENGTH, value, 0);
+		value[ID_LENGTH] = '-';
+		if (sampled) {
+			spanId.getChars(0, ID_LENGTH, value, SPAN_ID_OFFSET);
+		}
+		else {
+			System.arraycopy(ZERO_ID, 0, value, SPAN_ID_OFFSET, ID_LENGTH);
+		}
+		value[SAMPLED_OFFSET - 1] = '-';
+		value[SAMPLED_OFFSET] = sampled ? '1' : '0';
+		if (parentId != null) {
+			value[SAMPLED_OFFSET + 1] = '-';
+			parentId.getChars(0, ID_LENGTH, value, PARENT_ID_OFFSET);
+		}
+		return new String(value);
+	}
+
+	/**
+	 * @return true if the value is a well formed header value, the other methods may
+	 * only be called on those
+	 */
+	public static boolean isValid(String value) {
+		if (value == null
+				|| (value.length() != LENGTH && value.length() != LENGTH_WITH_PARENT)) {
+			return false;
+		}
+		if (!isHex(value, 0) || value.charAt(ID_LENGTH) != '-'
+				|| !isHex(value, SPAN_ID_OFFSET)
+				|| value.charAt(SAMPLED_OFFSET - 1) != '-') {
+			return false;
+		}
+		char sampled = value.charAt(SAMPLED_OFFSET);
+		if (sampled != '0' && sampled != '1') {
+			return false;
+		}
+		return value.length() == LENGTH || (value.charAt(SAMPLED_OFFSET + 1) == '-'
+				&& isHex(value, PARENT_ID_OFFSET));
+	}
+
+	public static String getTraceId(String value) {
+		return value.substring(0, ID_LENGTH);
+	}
+
+	/**
+	 * @return the span id, null if the trace is not sampled
+	 */
+	public static String getSpanId(String value) {
+		return isSampled(value) ? value.substring(SPAN_ID_OFFSET, SAMPLED_OFFSET - 1)
+				: null;
+	}
+
+	/**
+	 * @return the parent span id, null if there is none
+	 */
+	public static String getParentId(String value) {
+		return value.length() == LENGTH_WITH_PARENT
+				? value.substring(PARENT_ID_OFFSET) : null;
+	}
+
+	public static boolean isSampled(String value) {
+		return value.charAt(SAMPLED_OFFSET) == '1';
+	}
+
+	private static boolean isId(String id) {
+		return id != null && id.length() == ID_LENGTH && isHex(id, 0);
+	}
+
+	private static boolean isHex(String value, int from) {
+		for (int i = from; i < from + ID_LENGTH; i++) {
+			char c = value.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')
+					|| (c >= 'A' && c <= 'F'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+/**
+ * Conversions between the 64-bit ids used by Zipkin and their fixed-length, lower
+ * case hex representation carried in headers and on {@link org.springframework.cloud.sleuth.Span}.
+ */
+public abstract class IdUtils {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final int HEX_LENGTH = 16;
+
+	private static final int UUID_LENGTH = 36;
+
+	/**
+	 * Renders the id as 16 lower case hex characters, zero padded.
+	 */
+	public static String idToHex(long id) {
+		char[] data = new char[HEX_LENGTH];
+		for (int i = HEX_LENGTH - 1; i >= 0; i--) {
+			data[i] = HEX_DIGITS[(int) (id & 0xf)];
+			id >>>= 4;
+		}
+		return new String(data);
+	}
+
+	/**
+	 * Converts a span or trace id to a 64-bit id. Hex ids of up to 16 characters are
+	 * parsed exactly, longer (128-bit) hex ids and UUIDs keep their low 64 bits. Any
+	 * other legacy id is hashed, so that it still maps to the same value every time.
+	 */
+	public static long hexToId(String id) {
+		if (id == null) {
+			return hash(null);
+		}
+		int length = id.length();
+		if (length > 0 && length <= HEX_LENGTH && isHex(id, 0, length)) {
+			return parse(id, 0, length, 0L);
+		}
+		if (length == 2 * HEX_LENGTH && isHex(id, 0, length)) {
+			return parse(id, HEX_LENGTH, length, 0L);
+		}
+		if (isUuid(id) && isHex(id, 19, 23) && isHex(id, 24, UUID_LENGTH)) {
+			return parse(id, 24, UUID_LENGTH, parse(id, 19, 23, 0L));
+		}
+		return hash(id);
+	}
+
+	static boolean isHex(String id, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = id.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')
+					|| (c >= 'A' && c <= 'F'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static long parse(String id, int from, int to, long initial) {
+		long result = initial;
+		for (int i = from; i < to; i++) {
+			result = (result << 4) | Character.digit(id.charAt(i), 16);
+		}
+		return result;
+	}
+
+	private static boolean isUuid(String id) {
+		return id.length() == UUID_LENGTH && id.charAt(8) == '-' && id.charAt(13) == '-'
+				&& id.charAt(18) == '-' && id.charAt(23) == '-';
+	}
+
+	/**
+	 * The hash previously used to convert arbitrary string ids.
+	 */
+	private static long hash(String string) {
+		long h = 1125899906842597L;
+		if (string == null) {
+			return h;
+		}
+		int len = string.length();
+		for (int i = 0; i < len; i++) {
+			h = 31 * h + string.charAt(i);
+		}
+		return h;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.util;
+
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+
+/**
+ * Writes the trace headers of an outgoing request, so every client instrumentation
+ * picks the same header format: the {@link Trace#TRACE_CONTEXT_NAME} header when
+ * compact headers are enabled and the span ids allow it, otherwise the separate trace
+ * headers, and only the trace id plus {@link Trace#NOT_SAMPLED_NAME} for unsampled
+ * spans.
+ */
+public abstract class TraceHeaders {
+
+	/**
+	 * Sets a single header on the carrier of the request. Called once per header, null
+	 * values are never passed.
+	 */
+	public interface Setter {
+
+		void setHeader(String name, String value);
+
+	}
+
+	/**
+	 * @param span the span to propagate, or null when there is no current span
+	 * @param compact whether to prefer the single {@link Trace#TRACE_CONTEXT_NAME} header
+	 */
+	public static void inject(Span span, boolean compact, Setter setter) {
+		if (span == null) {
+			setter.setHeader(Trace.NOT_SAMPLED_NAME, "");
+			return;
+		}
+		String context = compact ? CompactTraceHeader.write(span) : null;
+		if (context != null) {
+			setter.setHeader(Trace.TRACE_CONTEXT_NAME, context);
+		}
+		else if (span.getSpanId() == null) {
+			set(setter, Trace.TRACE_ID_NAME, span.getTraceId());
+			setter.setHeader(Trace.NOT_SAMPLED_NAME, "");
+		}
+		else {
+			set(setter, Trace.TRACE_ID_NAME, span.getTraceId());
+			set(setter, Trace.SPAN_ID_NAME, span.getSpanId());
+			set(setter, Trace.SPAN_NAME_NAME, span.getName());
+			set(setter, Trace.PARENT_ID_NAME, getParentId(span));
+			set(setter, Trace.PROCESS_ID_NAME, span.getProcessId());
+		}
+	}
+
+	/**
+	 * @return the id of the direct parent of the span, or null for a root span
+	 */
+	public static String getParentId(Span span) {
+		List<String> parents = span.getParents();
+		return parents == null || parents.isEmpty() ? null : parents.get(0);
+	}
+
+	private static void set(Setter setter, String name, String value) {
+		if (value != null) {
+			setter.setHeader(name, value);
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ArrayList} that hands out the same unmodifiable view on every call to
+ * {@link #readOnly()}.
+ */
+@SuppressWarnings("serial")
+public class ViewableArrayList<E> extends ArrayList<E> {
+
+	private transient List<E> readOnlyView;
+
+	public ViewableArrayList() {
+		super(4);
+	}
+
+	/**
+	 * @return an unmodifiable view of this list, created once and then reused
+	 */
+	public List<E> readOnly() {
+		if (this.readOnlyView == null) {
+			this.readOnlyView = Collections.unmodifiableList(this);
+		}
+		return this.readOnlyView;
+	}
+
+}
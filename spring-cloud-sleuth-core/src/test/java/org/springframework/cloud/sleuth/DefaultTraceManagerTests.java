@@ -21,6 +21,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -33,7 +34,9 @@ import org.springframework.cloud.sleuth.event.SpanAcquiredEvent;
 import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
 import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
 import org.springframework.cloud.sleuth.sampler.IsTracingSampler;
+import org.springframework.cloud.sleuth.sampler.TraceIdBasedSampler;
 import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.util.JdkIdGenerator;
@@ -87,6 +90,56 @@ public class DefaultTraceManagerTests {
 		assertThat("gen4 was non-empty", gen4.isEmpty(), is(true));
 	}
 
+	@Test
+	public void unsampledTraceUsesNoOpSpans() {
+		ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+
+		DefaultTraceManager traceManager = new DefaultTraceManager(new IsTracingSampler(),
+				new JdkIdGenerator(), publisher);
+
+		Trace trace = traceManager.startSpan(CREATE_SIMPLE_TRACE);
+		Trace child = traceManager.startSpan(IMPORTANT_WORK_1);
+		traceManager.addAnnotation("key", "value");
+
+		assertThat(trace.getSpan() instanceof NoOpSpan, is(true));
+		assertThat(child.getSpan() instanceof NoOpSpan, is(true));
+		assertThat(child.getSpan().getTraceId(), is(trace.getSpan().getTraceId()));
+		assertThat(child.getSpan().getAnnotations().isEmpty(), is(true));
+
+		traceManager.close(child);
+		assertThat(TraceContextHolder.getCurrentTrace(), is(trace));
+		traceManager.close(trace);
+		assertThat(TraceContextHolder.getCurrentTrace() == null, is(true));
+
+		verify(publisher, never()).publishEvent(isA(SpanAcquiredEvent.class));
+	}
+
+	@Test
+	public void traceIdBasedSamplerDecidesOnRemoteTraceId() {
+		ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+		TraceIdBasedSampler sampler = new TraceIdBasedSampler(0.5f);
+		DefaultTraceManager traceManager = new DefaultTraceManager(sampler,
+				new JdkIdGenerator(), publisher);
+
+		// ids that scramble to values below and above half the range
+		Trace sampled = traceManager.startSpan("sampled",
+				MilliSpan.remote("remote", "0000000000000003", "1", null, null));
+		assertThat(sampled.getSpan().isExportable(), is(true));
+		traceManager.close(traceManager.close(sampled));
+
+		Trace notSampled = traceManager.startSpan("notSampled",
+				MilliSpan.remote("remote", "0000000000000001", "1", null, null));
+		assertThat(notSampled.getSpan() instanceof NoOpSpan, is(true));
+		assertThat(notSampled.getSpan().getTraceId(), is("0000000000000001"));
+		traceManager.close(traceManager.close(notSampled));
+
+		Trace root = traceManager.startSpan("root");
+		assertThat(root.getSpan().isExportable(),
+				is(sampler.isSampled(root.getSpan().getTraceId())));
+		traceManager.close(root);
+		assertThat(TraceContextHolder.getCurrentTrace() == null, is(true));
+	}
+
 	private Span assertSpan(List<Span> spans, String parentId, String name) {
 		List<Span> found = findSpans(spans, parentId);
 		assertThat("more than one span with parentId " + parentId, found.size(), is(1));
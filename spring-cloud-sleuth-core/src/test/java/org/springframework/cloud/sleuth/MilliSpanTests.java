@@ -16,6 +16,10 @@
 
 package org.springframework.cloud.sleuth;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Collections;
 
 import org.junit.Test;
@@ -40,4 +44,37 @@ public class MilliSpanTests {
 
 		span.getTimelineAnnotations().add(new TimelineAnnotation(1, "1"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void stopKeepsFirstEndTime() {
+		MilliSpan span = new MilliSpan(1, 0, "name", "traceId", Collections.<String>emptyList(), "spanId", true, true, "processId");
+
+		span.stop();
+		long end = span.getEnd();
+		span.stop();
+
+		assertEquals(end, span.getEnd());
+		assertEquals(end - 1, span.getAccumulatedMillis());
+		assertFalse(span.isRunning());
+	}
+
+	@Test
+	public void childSpanInheritsFromParent() {
+		MilliSpan parent = MilliSpan.root("parent", "id");
+
+		MilliSpan child = MilliSpan.child("child", parent, "childId");
+
+		assertEquals(MilliSpan.builder().begin(child.getBegin()).name("child")
+				.traceId("id").parent("id").spanId("childId").build(), child);
+		assertTrue(child.isRunning());
+	}
+
+	@Test
+	public void remoteSpanWithoutParent() {
+		MilliSpan span = MilliSpan.remote(null, "traceId", "spanId", null, null);
+
+		assertTrue(span.isRemote());
+		assertTrue(span.isExportable());
+		assertTrue(span.getParents().isEmpty());
+	}
+}
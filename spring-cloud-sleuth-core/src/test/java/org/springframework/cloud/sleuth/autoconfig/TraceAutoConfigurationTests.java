@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.autoconfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.EnvironmentTestUtils;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.sampler.AdaptiveSampler;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.sampler.RateLimitingSampler;
+import org.springframework.cloud.sleuth.sampler.TailSamplingSpanListener;
+import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.JdkIdGenerator;
+
+public class TraceAutoConfigurationTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void budgetTakesPrecedenceOverRate() {
+		load(null, "spring.sleuth.sampler.budget:100", "spring.sleuth.sampler.rate:10");
+
+		assertTrue(this.context.getBean(Sampler.class) instanceof AdaptiveSampler);
+		assertEquals(1, this.context.getBeanNamesForType(DefaultTraceManager.class).length);
+	}
+
+	@Test
+	public void rateTakesPrecedenceOverPercentage() {
+		load(null, "spring.sleuth.sampler.rate:10",
+				"spring.sleuth.sampler.percentage:0.5");
+
+		assertTrue(this.context.getBean(Sampler.class) instanceof RateLimitingSampler);
+	}
+
+	@Test
+	public void userSamplerTakesPrecedenceOverBudget() {
+		load(UserSamplerConfiguration.class, "spring.sleuth.sampler.budget:100");
+
+		assertSame(this.context.getBean(UserSamplerConfiguration.class).sampler,
+				this.context.getBean(Sampler.class));
+		assertEquals(0, this.context.getBeanNamesForType(AdaptiveSampler.class).length);
+	}
+
+	@Test
+	public void tailSamplingReportsWithUserTraceManager() {
+		load(UserTraceManagerConfiguration.class,
+				"spring.sleuth.sampler.tail.enabled:true",
+				"spring.sleuth.sampler.tail.latencyThreshold:0");
+		MilliSpan root = MilliSpan.builder().name("root").traceId("trace")
+				.spanId("root").begin(1).end(2).build();
+
+		this.context.getBean(TailSamplingSpanListener.class).spanReleased(null, root);
+
+		assertEquals(Collections.<Span>singletonList(root),
+				this.context.getBean(UserTraceManagerConfiguration.class).reported);
+	}
+
+	private void load(Class<?> configuration, String... pairs) {
+		this.context = new AnnotationConfigApplicationContext();
+		EnvironmentTestUtils.addEnvironment(this.context, pairs);
+		if (configuration != null) {
+			this.context.register(configuration);
+		}
+		this.context.register(PropertyPlaceholderAutoConfiguration.class,
+				TraceAutoConfiguration.class);
+		this.context.refresh();
+	}
+
+	@Configuration
+	static class UserSamplerConfiguration {
+
+		private final Sampler<Void> sampler = new AlwaysSampler();
+
+		@Bean
+		public Sampler<Void> userSampler() {
+			return this.sampler;
+		}
+
+	}
+
+	@Configuration
+	static class UserTraceManagerConfiguration {
+
+		private final List<Span> reported = new ArrayList<>();
+
+		@Bean
+		public DefaultTraceManager userTraceManager() {
+			return new DefaultTraceManager(new AlwaysSampler(), new JdkIdGenerator(),
+					Collections.<SpanListener>emptyList(),
+					Collections.<SpanReporter>emptyList());
+		}
+
+		@Bean
+		public SpanReporter userReporter() {
+			return new SpanReporter() {
+				@Override
+				public void report(Span span) {
+					UserTraceManagerConfiguration.this.reported.add(span);
+				}
+			};
+		}
+
+	}
+
+}
@@ -33,16 +33,17 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.IntegrationTest;
 import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.cloud.sleuth.MilliSpan;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
 import org.springframework.cloud.sleuth.Trace;
 import org.springframework.cloud.sleuth.TraceManager;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
 import org.springframework.cloud.sleuth.instrument.integration.TraceChannelInterceptorTests.App;
 import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
 import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.cloud.sleuth.util.BinaryTraceContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.event.EventListener;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
@@ -83,6 +84,7 @@ public class TraceChannelInterceptorTests implements MessageHandler {
 	@Before
 	public void init() {
 		this.channel.subscribe(this);
+		this.app.events.clear();
 	}
 
 	@After
@@ -98,7 +100,9 @@ public class TraceChannelInterceptorTests implements MessageHandler {
 		assertNotNull("message was null", this.message);
 
 		String spanId = this.message.getHeaders().get(Trace.SPAN_ID_NAME, String.class);
-		assertNotNull("spanId was null", spanId);
+		assertNull("unsampled span has no spanId", spanId);
+		String traceId = this.message.getHeaders().get(Trace.TRACE_ID_NAME, String.class);
+		assertNotNull("traceId was null", traceId);
 		assertNull(TraceContextHolder.getCurrentTrace());
 		assertFalse(this.span.isExportable());
 	}
@@ -117,6 +121,22 @@ public class TraceChannelInterceptorTests implements MessageHandler {
 		assertEquals(1, this.app.events.size());
 	}
 
+	@Test
+	public void parentSpanReadFromBinaryContext() {
+		byte[] context = BinaryTraceContext.write(MilliSpan.root("parent",
+				"463ac35c9f6413ad"));
+		this.channel.send(MessageBuilder.withPayload("hi")
+				.setHeader(Trace.BINARY_CONTEXT_NAME, context).build());
+		assertNotNull("message was null", this.message);
+
+		assertEquals("463ac35c9f6413ad", this.span.getTraceId());
+		assertEquals("463ac35c9f6413ad", this.span.getParents().get(0));
+		assertEquals("463ac35c9f6413ad",
+				this.message.getHeaders().get(Trace.TRACE_ID_NAME, String.class));
+		assertNull(this.message.getHeaders().get(Trace.BINARY_CONTEXT_NAME));
+		assertNull(TraceContextHolder.getCurrentTrace());
+	}
+
 	@Test
 	public void spanCreation() {
 		this.channel.send(MessageBuilder.withPayload("hi").build());
@@ -148,13 +168,21 @@ public class TraceChannelInterceptorTests implements MessageHandler {
 
 	@Configuration
 	@EnableAutoConfiguration
-	static class App {
+	static class App implements SpanListener {
+
+		private List<Span> events = new ArrayList<>();
 
-		private List<SpanReleasedEvent> events = new ArrayList<>();
+		@Override
+		public void spanAcquired(Span parent, Span span) {
+		}
+
+		@Override
+		public void spanContinued(Span span) {
+		}
 
-		@EventListener
-		public void  handle(SpanReleasedEvent event) {
-			this.events.add(event);
+		@Override
+		public void spanReleased(Span parent, Span span) {
+			this.events.add(span);
 		}
 
 		@Bean
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class HttpHeaderCaptureTests {
+
+	private HttpHeaderProperties properties = new HttpHeaderProperties();
+
+	@Test
+	public void excludesCredentialsByDefault() {
+		HttpHeaderCapture capture = new HttpHeaderCapture(this.properties);
+
+		assertNull(capture.requestKey("Cookie"));
+		assertNull(capture.requestKey("Authorization"));
+		assertNull(capture.responseKey("Set-Cookie"));
+		assertEquals("/http/request/headers/accept", capture.requestKey("Accept"));
+		assertEquals("/http/response/headers/content-type",
+				capture.responseKey("Content-Type"));
+	}
+
+	@Test
+	public void capturesOnlyIncludedHeaders() {
+		this.properties.setInclude(Arrays.asList("X-Request-Id"));
+		HttpHeaderCapture capture = new HttpHeaderCapture(this.properties);
+
+		assertEquals("/http/request/headers/x-request-id",
+				capture.requestKey("x-request-id"));
+		assertNull(capture.requestKey("Accept"));
+	}
+
+	@Test
+	public void capturesNothingWhenDisabled() {
+		this.properties.setEnabled(false);
+		HttpHeaderCapture capture = new HttpHeaderCapture(this.properties);
+
+		assertNull(capture.requestKey("Accept"));
+	}
+
+	@Test
+	public void reusesKeys() {
+		HttpHeaderCapture capture = new HttpHeaderCapture(this.properties);
+
+		assertSame(capture.requestKey("Accept"), capture.requestKey("Accept"));
+		assertSame(capture.requestKey("Accept"), capture.requestKey("accept"));
+	}
+
+	@Test
+	public void truncatesLongValues() {
+		this.properties.setMaxValueLength(3);
+		HttpHeaderCapture capture = new HttpHeaderCapture(this.properties);
+
+		assertEquals("abc", capture.value("abcdef"));
+		assertEquals("ab", capture.value("ab"));
+	}
+
+}
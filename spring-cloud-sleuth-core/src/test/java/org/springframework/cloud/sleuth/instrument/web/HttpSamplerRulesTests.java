@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Sampler;
+
+public class HttpSamplerRulesTests {
+
+	private List<HttpSamplerProperties.Rule> rules = new ArrayList<>();
+
+	@Test
+	public void subtreeRuleMatchesRootAndDescendants() {
+		rule(null, "/checkout/**", 1.0f);
+		HttpSamplerRules sampler = new HttpSamplerRules(this.rules);
+
+		assertTrue(sampler.samplerFor("GET", "/checkout").next(null));
+		assertTrue(sampler.samplerFor("GET", "/checkout/cart/1").next(null));
+		assertNull(sampler.samplerFor("GET", "/check"));
+	}
+
+	@Test
+	public void mostSpecificRuleWins() {
+		rule(null, "/**", 1.0f);
+		rule(null, "/api/*/health", 0.0f);
+		rule("POST", "/api/orders", 0.0f);
+		HttpSamplerRules sampler = new HttpSamplerRules(this.rules);
+
+		assertFalse(sampler.samplerFor("GET", "/api/orders/health").next(null));
+		assertFalse(sampler.samplerFor("POST", "/api/orders").next(null));
+		assertTrue(sampler.samplerFor("GET", "/api/orders").next(null));
+		assertTrue(sampler.samplerFor("GET", "/api/orders/1").next(null));
+		assertTrue(sampler.samplerFor("GET", "/").next(null));
+	}
+
+	@Test
+	public void literalSegmentTakesPrecedenceOverWildcard() {
+		rule(null, "/users/*", 0.0f);
+		rule(null, "/users/me", 1.0f);
+		HttpSamplerRules sampler = new HttpSamplerRules(this.rules);
+
+		Sampler<Void> me = sampler.samplerFor("GET", "/users/me");
+		assertTrue(me.next(null));
+		assertFalse(sampler.samplerFor("GET", "/users/42").next(null));
+	}
+
+	@Test
+	public void tenthOfAPercentRuleSamplesTenInTenThousand() {
+		rule(null, "/health", 0.001f);
+		Sampler<Void> health = new HttpSamplerRules(this.rules).samplerFor("GET", "/health");
+
+		int sampled = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (health.next(null)) {
+				sampled++;
+			}
+		}
+		assertEquals(10, sampled);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void doubleWildcardOnlyAtTheEnd() {
+		rule(null, "/**/health", 1.0f);
+		new HttpSamplerRules(this.rules);
+	}
+
+	private void rule(String method, String path, float percentage) {
+		HttpSamplerProperties.Rule rule = new HttpSamplerProperties.Rule();
+		rule.setMethod(method);
+		rule.setPath(path);
+		rule.setPercentage(percentage);
+		this.rules.add(rule);
+	}
+
+}
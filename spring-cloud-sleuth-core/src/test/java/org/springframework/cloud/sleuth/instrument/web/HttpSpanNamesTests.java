@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class HttpSpanNamesTests {
+
+	@Test
+	public void namesAfterPatternOncePerPattern() {
+		HttpSpanNames names = new HttpSpanNames(10, 10);
+
+		String name = names.getName("/orders/{id}", "http/orders/1");
+
+		assertEquals("http/orders/{id}", name);
+		assertSame(name, names.getName("/orders/{id}", "http/orders/2"));
+	}
+
+	@Test
+	public void keepsPathNameWithoutPattern() {
+		assertEquals("http/status",
+				new HttpSpanNames(10, 10).getName(null, "http/status"));
+	}
+
+	@Test
+	public void collapsesNamesOverTheLimit() {
+		HttpSpanNames names = new HttpSpanNames(1, 1);
+		names.getName("/orders/{id}", "http/orders/1");
+		names.getName(null, "http/status");
+
+		assertEquals(HttpSpanNames.OTHER_NAME,
+				names.getName("/users/{id}", "http/users/1"));
+		assertEquals(HttpSpanNames.OTHER_NAME, names.getName(null, "http/random"));
+		assertEquals("http/orders/{id}", names.getName("/orders/{id}", "http/orders/3"));
+		assertEquals("http/status", names.getName(null, "http/status"));
+		assertEquals(2, names.getCollapsedSpans());
+	}
+
+	@Test
+	public void unmatchedPathsDoNotUseUpRouteNames() {
+		HttpSpanNames names = new HttpSpanNames(1, 1);
+		names.getName(null, "http/random1");
+		names.getName(null, "http/random2");
+
+		assertEquals("http/orders/{id}", names.getName("/orders/{id}", "http/orders/1"));
+	}
+
+}
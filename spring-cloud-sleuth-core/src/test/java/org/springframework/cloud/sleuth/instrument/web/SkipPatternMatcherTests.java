@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class SkipPatternMatcherTests {
+
+	@Test
+	public void agreesWithDefaultSkipPattern() {
+		SkipPatternMatcher matcher = new SkipPatternMatcher(
+				TraceFilter.DEFAULT_SKIP_PATTERN);
+
+		for (String uri : Arrays.asList("/api-docs", "/api-docs/v2", "/info",
+				"/info/more", "/metrics", "/metrics/jvm", "/swagger-ui.html", "/logo.png",
+				"/static/app.js", "/app.json", "/favicon.ico", "/faviconxico", "/css",
+				"/site.css", "/", "", "/hystrix.stream", "/orders/1", "/tracer")) {
+			assertEquals(uri, TraceFilter.DEFAULT_SKIP_PATTERN.matcher(uri).matches(),
+					matcher.matches(uri));
+		}
+	}
+
+	@Test
+	public void defaultSkipPatternNeedsNoRegex() {
+		assertNull(new SkipPatternMatcher(TraceFilter.DEFAULT_SKIP_PATTERN)
+				.getRemaining());
+	}
+
+	@Test
+	public void leftoverAlternativesFallBackToRegex() {
+		SkipPatternMatcher matcher = new SkipPatternMatcher(
+				Pattern.compile("/health|/api/v[0-9]+/ping|(/a|/b)/c"));
+
+		assertTrue(matcher.matches("/health"));
+		assertTrue(matcher.matches("/api/v12/ping"));
+		assertTrue(matcher.matches("/b/c"));
+		assertFalse(matcher.matches("/api/vx/ping"));
+		assertFalse(matcher.matches("/a"));
+	}
+
+	@Test
+	public void matchesEverythingWithWildcard() {
+		assertTrue(new SkipPatternMatcher(Pattern.compile("/x|.*")).matches("/y"));
+	}
+
+	@Test
+	public void splitsOnTopLevelAlternativesOnly() {
+		assertEquals(Arrays.asList("/a", "(/b|/c)", "[|]", "\\|x"),
+				SkipPatternMatcher.splitAlternatives("/a|(/b|/c)|[|]|\\|x"));
+	}
+
+	@Test
+	public void recognizesLiterals() {
+		assertEquals("/favicon.ico", SkipPatternMatcher.literal("/favicon\\.ico"));
+		assertNull(SkipPatternMatcher.literal("/favicon.ico"));
+		assertNull(SkipPatternMatcher.literal("/v\\d"));
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.cloud.sleuth.instrument.web;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
@@ -36,6 +37,7 @@ import org.springframework.cloud.sleuth.trace.TraceContextHolder;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -135,6 +137,35 @@ public class TraceFilterTests {
 		assertNull(TraceContextHolder.getCurrentTrace());
 	}
 
+	@Test
+	public void continuesSpanFromCompactHeader() throws Exception {
+		this.request = builder()
+				.header(Trace.TRACE_CONTEXT_NAME,
+						"463ac35c9f6413ad-a2fb4a1d1a96d312-1-0020000000000001")
+				.buildRequest(new MockServletContext());
+
+		TraceFilter filter = new TraceFilter(this.traceManager);
+		filter.doFilter(this.request, this.response, this.filterChain);
+
+		verifyHttpAnnotations();
+		assertEquals("463ac35c9f6413ad", this.span.getTraceId());
+		assertEquals("a2fb4a1d1a96d312", this.span.getParents().get(0));
+
+		assertNull(TraceContextHolder.getCurrentTrace());
+	}
+
+	@Test
+	public void namesSpanAfterMatchedRoute() throws Exception {
+		this.request.setAttribute(HttpSpanNames.BEST_MATCHING_PATTERN_ATTRIBUTE,
+				"/orders/{id}");
+
+		TraceFilter filter = new TraceFilter(this.traceManager);
+		filter.doFilter(this.request, this.response, this.filterChain);
+
+		assertEquals("http/orders/{id}", this.span.getName());
+		assertNull(TraceContextHolder.getCurrentTrace());
+	}
+
 	@Test
 	public void catchesException() throws Exception {
 		TraceFilter filter = new TraceFilter(this.traceManager);
@@ -157,6 +188,30 @@ public class TraceFilterTests {
 		assertNull(TraceContextHolder.getCurrentTrace());
 	}
 
+	@Test
+	public void closesSpanWhenAsyncRequestCompletes() throws Exception {
+		TraceFilter filter = new TraceFilter(this.traceManager);
+		this.request.setAsyncSupported(true);
+		this.filterChain = new MockFilterChain() {
+			@Override
+			public void doFilter(javax.servlet.ServletRequest request,
+					javax.servlet.ServletResponse response) {
+				request.startAsync(request, response);
+			}
+		};
+
+		filter.doFilter(this.request, this.response, this.filterChain);
+
+		assertNull(TraceContextHolder.getCurrentTrace());
+		assertTrue(this.span.isRunning());
+
+		((MockAsyncContext) this.request.getAsyncContext()).complete();
+
+		assertFalse(this.span.isRunning());
+		verifyHttpAnnotations();
+		assertNull(TraceContextHolder.getCurrentTrace());
+	}
+
 	public void verifyHttpAnnotations() {
 		verifyHttpAnnotations(HttpStatus.OK);
 	}
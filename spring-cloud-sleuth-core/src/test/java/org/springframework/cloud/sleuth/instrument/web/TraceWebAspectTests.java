@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.instrument.TraceCallable;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+public class TraceWebAspectTests {
+
+	private final List<Span> reported = new ArrayList<>();
+
+	private TraceManager traceManager;
+
+	private AsyncController controller;
+
+	@Before
+	public void init() {
+		this.traceManager = new DefaultTraceManager(new AlwaysSampler(),
+				new JdkIdGenerator(), Collections.<SpanListener>emptyList(),
+				Collections.<SpanReporter>singletonList(new SpanReporter() {
+					@Override
+					public void report(Span span) {
+						TraceWebAspectTests.this.reported.add(span);
+					}
+				}));
+		AspectJProxyFactory factory = new AspectJProxyFactory(new AsyncController());
+		factory.setProxyTargetClass(true);
+		factory.addAspect(new TraceWebAspect(this.traceManager, this.traceManager));
+		this.controller = factory.getProxy();
+	}
+
+	@After
+	public void close() {
+		TraceContextHolder.removeCurrentTrace();
+	}
+
+	@Test
+	public void wrapsWebAsyncTaskCallable() {
+		Trace trace = this.traceManager.startSpan("http/task");
+
+		WebAsyncTask<String> task = this.controller.task();
+
+		assertTrue(task.getCallable() instanceof TraceCallable);
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void closesSpanWhenListenableFutureCompletes() throws Exception {
+		Trace trace = this.traceManager.startSpan("http/future");
+
+		final SettableListenableFuture<String> future = this.controller.future();
+
+		assertSame(trace.getSpan(), TraceContextHolder.getCurrentSpan());
+		assertTrue(this.reported.isEmpty());
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				future.set("done");
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertEquals(1, this.reported.size());
+		Span span = this.reported.get(0);
+		assertEquals("future", span.getName());
+		assertEquals(trace.getSpan().getSpanId(), span.getParents().get(0));
+		assertSame(trace.getSpan(), TraceContextHolder.getCurrentSpan());
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void closesSpanOfCompletedFutureStraightAway() {
+		Trace trace = this.traceManager.startSpan("http/future");
+
+		ListenableFuture<String> future = this.controller.completed();
+
+		assertTrue(future.isDone());
+		assertEquals(1, this.reported.size());
+		assertSame(trace.getSpan(), TraceContextHolder.getCurrentSpan());
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void leavesFutureAloneWhenNotTracing() {
+		SettableListenableFuture<String> future = this.controller.future();
+		future.set("done");
+
+		assertTrue(this.reported.isEmpty());
+		assertNull(TraceContextHolder.getCurrentTrace());
+	}
+
+	@RestController
+	public static class AsyncController {
+
+		public WebAsyncTask<String> task() {
+			return new WebAsyncTask<>(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return "done";
+				}
+			});
+		}
+
+		public SettableListenableFuture<String> future() {
+			return new SettableListenableFuture<>();
+		}
+
+		public ListenableFuture<String> completed() {
+			SettableListenableFuture<String> future = new SettableListenableFuture<>();
+			future.set("done");
+			return future;
+		}
+
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.web.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.TraceManager;
+import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
+import org.springframework.cloud.sleuth.event.ClientSentEvent;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+public class TraceAsyncClientHttpRequestFactoryTests {
+
+	private final List<ApplicationEvent> events = new ArrayList<>();
+
+	private final SettableListenableFuture<ClientHttpResponse> response = new SettableListenableFuture<>();
+
+	private final HttpHeaders streamedHeaders = new HttpHeaders();
+
+	private TraceManager traceManager;
+
+	private TraceAsyncClientHttpRequestFactory factory;
+
+	@Before
+	public void init() {
+		ApplicationEventPublisher publisher = new ApplicationEventPublisher() {
+			@Override
+			public void publishEvent(ApplicationEvent event) {
+				TraceAsyncClientHttpRequestFactoryTests.this.events.add(event);
+			}
+
+			@Override
+			public void publishEvent(Object event) {
+				publishEvent((ApplicationEvent) event);
+			}
+		};
+		this.traceManager = new DefaultTraceManager(new AlwaysSampler(),
+				new JdkIdGenerator(), publisher);
+		this.factory = new TraceAsyncClientHttpRequestFactory(new StubRequestFactory(),
+				this.traceManager, publisher, false);
+	}
+
+	@After
+	public void close() {
+		TraceContextHolder.removeCurrentTrace();
+	}
+
+	@Test
+	public void sendsChildSpanAndClosesItOnCompletion() throws Exception {
+		Trace trace = this.traceManager.startSpan("http/fanout");
+		this.events.clear();
+
+		AsyncClientHttpRequest request = this.factory
+				.createAsyncRequest(new URI("http://backend/orders"), HttpMethod.GET);
+		request.executeAsync();
+
+		Span parent = trace.getSpan();
+		HttpHeaders headers = request.getHeaders();
+		assertNotEquals(parent.getSpanId(), headers.getFirst(Trace.SPAN_ID_NAME));
+		assertEquals(parent.getSpanId(), headers.getFirst(Trace.PARENT_ID_NAME));
+		assertEquals("http/orders", headers.getFirst(Trace.SPAN_NAME_NAME));
+		assertSame(parent, TraceContextHolder.getCurrentSpan());
+		Span span = sentSpan();
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				TraceAsyncClientHttpRequestFactoryTests.this.response
+						.set(new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertSame(span, receivedSpan());
+		assertEquals(headers.getFirst(Trace.SPAN_ID_NAME), span.getSpanId());
+		assertTrue(span.getEnd() > 0);
+		assertSame(parent, TraceContextHolder.getCurrentSpan());
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void closesSpanWhenCallFails() throws Exception {
+		Trace trace = this.traceManager.startSpan("http/fanout");
+		this.events.clear();
+
+		this.factory.createAsyncRequest(new URI("http://backend/orders"), HttpMethod.GET)
+				.executeAsync();
+		this.response.setException(new IOException("refused"));
+
+		assertSame(sentSpan(), receivedSpan());
+		assertSame(trace.getSpan(), TraceContextHolder.getCurrentSpan());
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void setsHeadersBeforeStreamingTheBody() throws Exception {
+		Trace trace = this.traceManager.startSpan("http/fanout");
+		this.events.clear();
+
+		AsyncClientHttpRequest request = this.factory
+				.createAsyncRequest(new URI("http://backend/orders"), HttpMethod.POST);
+		request.getBody().write("order".getBytes());
+		request.executeAsync();
+
+		assertEquals(sentSpan().getSpanId(),
+				this.streamedHeaders.getFirst(Trace.SPAN_ID_NAME));
+		assertEquals(trace.getSpan().getSpanId(),
+				this.streamedHeaders.getFirst(Trace.PARENT_ID_NAME));
+		this.response.set(new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+		assertSame(sentSpan(), receivedSpan());
+		this.traceManager.close(trace);
+	}
+
+	@Test
+	public void notTraced() throws Exception {
+		AsyncClientHttpRequest request = this.factory
+				.createAsyncRequest(new URI("http://backend/orders"), HttpMethod.GET);
+		request.executeAsync();
+
+		assertFalse(request.getHeaders().containsKey(Trace.TRACE_ID_NAME));
+		assertTrue(this.events.isEmpty());
+	}
+
+	private Span sentSpan() {
+		for (ApplicationEvent event : this.events) {
+			if (event instanceof ClientSentEvent) {
+				return ((ClientSentEvent) event).getSpan();
+			}
+		}
+		return null;
+	}
+
+	private Span receivedSpan() {
+		for (ApplicationEvent event : this.events) {
+			if (event instanceof ClientReceivedEvent) {
+				return ((ClientReceivedEvent) event).getSpan();
+			}
+		}
+		return null;
+	}
+
+	private class StubRequestFactory implements AsyncClientHttpRequestFactory {
+
+		@Override
+		public AsyncClientHttpRequest createAsyncRequest(final URI uri,
+				final HttpMethod httpMethod) {
+			final HttpHeaders headers = new HttpHeaders();
+			return new AsyncClientHttpRequest() {
+				@Override
+				public ListenableFuture<ClientHttpResponse> executeAsync() {
+					return TraceAsyncClientHttpRequestFactoryTests.this.response;
+				}
+
+				@Override
+				public HttpMethod getMethod() {
+					return httpMethod;
+				}
+
+				@Override
+				public URI getURI() {
+					return uri;
+				}
+
+				@Override
+				public HttpHeaders getHeaders() {
+					return headers;
+				}
+
+				@Override
+				public OutputStream getBody() {
+					// like a streaming request, the headers go out with the body
+					TraceAsyncClientHttpRequestFactoryTests.this.streamedHeaders
+							.putAll(headers);
+					return new ByteArrayOutputStream();
+				}
+			};
+		}
+
+	}
+
+}
@@ -18,22 +18,38 @@ package org.springframework.cloud.sleuth.instrument.web.client;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
 import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
 import org.springframework.cloud.sleuth.trace.DefaultTraceManager;
 import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.web.client.MockMvcClientHttpRequestFactory;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -79,10 +95,67 @@ public class TraceRestTemplateInterceptorTests {
 		@SuppressWarnings("unchecked")
 		Map<String, String> headers = this.template.getForEntity("/", Map.class)
 				.getBody();
-		assertEquals("bar", headers.get(Trace.SPAN_ID_NAME));
+		assertNotEquals("bar", headers.get(Trace.SPAN_ID_NAME));
+		assertEquals("bar", headers.get(Trace.PARENT_ID_NAME));
 		assertEquals("foo", headers.get(Trace.TRACE_ID_NAME));
 	}
 
+	@Test
+	public void eachCallHasItsOwnSpan() {
+		Span caller = MilliSpan.builder().traceId("foo").spanId("bar").build();
+		this.traces.continueSpan(caller);
+		@SuppressWarnings("unchecked")
+		Map<String, String> first = this.template.getForEntity("/", Map.class)
+				.getBody();
+		@SuppressWarnings("unchecked")
+		Map<String, String> second = this.template.getForEntity("/", Map.class)
+				.getBody();
+		assertNotEquals(first.get(Trace.SPAN_ID_NAME), second.get(Trace.SPAN_ID_NAME));
+		assertSame(caller, TraceContextHolder.getCurrentSpan());
+	}
+
+	@Test
+	public void responseCanBeClosedOnAnotherThread() throws Exception {
+		final List<Span> received = new ArrayList<>();
+		this.publisher.addApplicationListener(
+				new ApplicationListener<ClientReceivedEvent>() {
+					@Override
+					public void onApplicationEvent(ClientReceivedEvent event) {
+						received.add(event.getSpan());
+					}
+				});
+		TraceRestTemplateInterceptor interceptor = new TraceRestTemplateInterceptor(
+				this.traces);
+		interceptor.setApplicationEventPublisher(this.publisher);
+		Span caller = MilliSpan.builder().traceId("foo").spanId("bar").build();
+		this.traces.continueSpan(caller);
+		MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+				new URI("/orders"));
+
+		final ClientHttpResponse response = interceptor.intercept(request, new byte[0],
+				new ClientHttpRequestExecution() {
+					@Override
+					public ClientHttpResponse execute(HttpRequest httpRequest, byte[] body) {
+						return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+					}
+				});
+		assertSame(caller, TraceContextHolder.getCurrentSpan());
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				response.close();
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertEquals(1, received.size());
+		Span span = received.get(0);
+		assertEquals(request.getHeaders().getFirst(Trace.SPAN_ID_NAME), span.getSpanId());
+		assertTrue(span.getEnd() > 0);
+		assertSame(caller, TraceContextHolder.getCurrentSpan());
+	}
+
 	@Test
 	public void headersNotAddedWhenNotTracing() {
 		@SuppressWarnings("unchecked")
@@ -23,7 +23,6 @@ import org.junit.Test;
 import org.springframework.boot.test.OutputCapture;
 import org.springframework.cloud.sleuth.MilliSpan;
 import org.springframework.cloud.sleuth.Span;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
@@ -48,7 +47,7 @@ public class JsonLogSpanListenerTests {
 				.build();
 		span.addAnnotation("myKey", "myVal");
 		span.addTimelineAnnotation("myTimelineAnnotation");
-		listener.stop(new SpanReleasedEvent(this, span));
+		listener.spanReleased(null, span);
 
 		String output = this.output.toString().trim();
 		assertTrue("output doesn't contain prefix", output.contains(listener.getPrefix()));
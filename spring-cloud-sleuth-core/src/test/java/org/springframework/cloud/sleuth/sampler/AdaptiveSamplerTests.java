@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.ExporterStatus;
+import org.springframework.cloud.sleuth.MilliSpan;
+
+public class AdaptiveSamplerTests {
+
+	private long nanoTime = 0;
+
+	private int queued = 0;
+
+	private long dropped = 0;
+
+	private AdaptiveSampler sampler = new AdaptiveSampler(100, 1000,
+			Collections.singletonList(new ExporterStatus() {
+				@Override
+				public int getQueuedSpans() {
+					return AdaptiveSamplerTests.this.queued;
+				}
+
+				@Override
+				public long getDroppedSpans() {
+					return AdaptiveSamplerTests.this.dropped;
+				}
+			})) {
+		@Override
+		protected long nanoTime() {
+			return AdaptiveSamplerTests.this.nanoTime;
+		}
+	};
+
+	@Test
+	public void halvesProbabilityWhenOverBudget() {
+		reportSpans(200);
+
+		nextInterval();
+
+		assertEquals(0.5, this.sampler.getProbability(), 0.0001);
+		assertEquals(200, this.sampler.getSpanRate(), 0.0001);
+	}
+
+	@Test
+	public void halvesProbabilityWhenExporterFallsBehind() {
+		this.queued = 5000;
+		nextInterval();
+		assertEquals(0.5, this.sampler.getProbability(), 0.0001);
+
+		this.queued = 0;
+		this.dropped = 10;
+		nextInterval();
+		assertEquals(0.25, this.sampler.getProbability(), 0.0001);
+	}
+
+	@Test
+	public void raisesProbabilityStepwiseWhenHealthy() {
+		reportSpans(200);
+		nextInterval();
+
+		nextInterval();
+		nextInterval();
+
+		assertEquals(0.5 + 2 * AdaptiveSampler.INCREASE, this.sampler.getProbability(),
+				0.0001);
+	}
+
+	@Test
+	public void probabilityHasLowerBound() {
+		this.queued = 5000;
+		for (int i = 0; i < 20; i++) {
+			nextInterval();
+		}
+		assertEquals(AdaptiveSampler.MIN_PROBABILITY, this.sampler.getProbability(),
+				0.0001);
+	}
+
+	private void reportSpans(int count) {
+		for (int i = 0; i < count; i++) {
+			this.sampler.report(MilliSpan.builder().name("span").build());
+		}
+	}
+
+	private void nextInterval() {
+		this.nanoTime += 1_000_000_000L;
+		this.sampler.next(null);
+	}
+
+}
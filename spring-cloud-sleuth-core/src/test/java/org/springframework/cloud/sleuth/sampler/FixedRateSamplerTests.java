@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FixedRateSamplerTests {
+
+	@Test
+	public void samplesOneInEveryThousandTraces() {
+		FixedRateSampler sampler = new FixedRateSampler(1000);
+
+		int sampled = 0;
+		for (int i = 0; i < 3000; i++) {
+			if (sampler.next(null)) {
+				sampled++;
+			}
+		}
+		assertEquals(3, sampled);
+	}
+
+	@Test
+	public void rateOfOneSamplesEverything() {
+		assertTrue(new FixedRateSampler(1).next(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNonPositiveRate() {
+		new FixedRateSampler(0);
+	}
+
+}
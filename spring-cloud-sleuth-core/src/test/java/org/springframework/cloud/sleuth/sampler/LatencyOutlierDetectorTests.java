@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+
+public class LatencyOutlierDetectorTests {
+
+	private LatencyOutlierDetector detector = new LatencyOutlierDetector(0.99, 2);
+
+	@Test
+	public void slowSpanIsOutlierForItsName() {
+		for (int i = 0; i < 200; i++) {
+			assertFalse(this.detector.isOutlier(span("fast", 10 + i % 5)));
+		}
+
+		assertTrue(this.detector.isOutlier(span("fast", 1000)));
+		assertFalse(this.detector.isOutlier(span("fast", 12)));
+		assertFalse(this.detector.isOutlier(span("other", 1000)));
+	}
+
+	@Test
+	public void numberOfTrackedNamesIsBounded() {
+		this.detector.isOutlier(span("a", 1));
+		this.detector.isOutlier(span("b", 1));
+		this.detector.isOutlier(span("c", 1));
+
+		assertEquals(1, this.detector.getUntrackedSpans());
+	}
+
+	@Test
+	public void bucketsCoverAllValues() {
+		for (long value = 0; value < 100000; value++) {
+			int index = LatencyOutlierDetector.Histogram.index(value);
+			assertTrue(LatencyOutlierDetector.Histogram.upperBound(index) >= value);
+		}
+	}
+
+	private MilliSpan span(String name, long millis) {
+		return MilliSpan.builder().name(name).begin(1).end(1 + millis).build();
+	}
+
+}
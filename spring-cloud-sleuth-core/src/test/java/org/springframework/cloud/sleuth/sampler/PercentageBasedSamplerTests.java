@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PercentageBasedSamplerTests {
+
+	@Test
+	public void samplesExactPercentageOfEveryTenThousandTraces() {
+		PercentageBasedSampler sampler = new PercentageBasedSampler(0.2f);
+
+		for (int block = 0; block < 3; block++) {
+			int sampled = 0;
+			for (int i = 0; i < 10000; i++) {
+				if (sampler.next(null)) {
+					sampled++;
+				}
+			}
+			assertEquals(2000, sampled);
+		}
+	}
+
+	@Test
+	public void samplesTenthOfAPercentExactly() {
+		PercentageBasedSampler sampler = new PercentageBasedSampler(0.001f);
+
+		int sampled = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (sampler.next(null)) {
+				sampled++;
+			}
+		}
+		assertEquals(10, sampled);
+	}
+
+	@Test
+	public void zeroAndHundredPercent() {
+		assertFalse(new PercentageBasedSampler(0.0f).next(null));
+		assertTrue(new PercentageBasedSampler(1.0f).next(null));
+	}
+
+	@Test
+	public void randomBitSetHasRequestedCardinality() {
+		assertEquals(29, PercentageBasedSampler.randomBitSet(100, 29, new Random())
+				.cardinality());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPercentageAboveOne() {
+		new PercentageBasedSampler(1.5f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPercentageBelowPrecision() {
+		new PercentageBasedSampler(0.00001f);
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.trace.TraceContextHolder;
+
+public class RateLimitingSamplerTests {
+
+	private long nanoTime = 0;
+
+	private RateLimitingSampler sampler = new RateLimitingSampler(10) {
+		@Override
+		protected long nanoTime() {
+			return RateLimitingSamplerTests.this.nanoTime;
+		}
+	};
+
+	@After
+	public void clean() {
+		TraceContextHolder.removeCurrentTrace();
+	}
+
+	@Test
+	public void samplesUpToRateThenRefills() {
+		for (int i = 0; i < 10; i++) {
+			assertTrue(this.sampler.next(null));
+		}
+		assertFalse(this.sampler.next(null));
+
+		this.nanoTime += 100_000_000L;
+		assertTrue(this.sampler.next(null));
+		assertFalse(this.sampler.next(null));
+	}
+
+	@Test
+	public void bucketDoesNotGrowBeyondOneSecond() {
+		this.nanoTime += 10_000_000_000L;
+		for (int i = 0; i < 10; i++) {
+			assertTrue(this.sampler.next(null));
+		}
+		assertFalse(this.sampler.next(null));
+	}
+
+	@Test
+	public void continuesTracesWhenBucketIsEmpty() {
+		for (int i = 0; i < 10; i++) {
+			this.sampler.next(null);
+		}
+		TraceContextHolder.setCurrentTrace(new Trace(MilliSpan.builder().name("current")
+				.build()));
+
+		assertTrue(this.sampler.next(null));
+	}
+
+}
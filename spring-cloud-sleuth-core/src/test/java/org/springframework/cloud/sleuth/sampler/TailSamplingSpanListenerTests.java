@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+
+public class TailSamplingSpanListenerTests {
+
+	private long nanoTime = 0;
+
+	private List<Span> reported = new ArrayList<>();
+
+	private TailSamplingSpanListener listener = new TailSamplingSpanListener(1000,
+			new PercentageBasedSampler(0.0f), 2, 2, 100) {
+		@Override
+		protected long nanoTime() {
+			return TailSamplingSpanListenerTests.this.nanoTime;
+		}
+	};
+
+	@Before
+	public void setup() {
+		this.listener.setReporters(Collections.singletonList(new SpanReporter() {
+			@Override
+			public void report(Span span) {
+				TailSamplingSpanListenerTests.this.reported.add(span);
+			}
+		}));
+	}
+
+	@Test
+	public void keepsSlowTraces() {
+		MilliSpan root = span("trace", "root", null, 1, 2001);
+		this.listener.spanReleased(root, span("trace", "child", "root", 2, 3));
+
+		this.listener.spanReleased(null, root);
+
+		assertEquals(2, this.reported.size());
+		assertEquals(1, this.listener.getKeptTraces());
+	}
+
+	@Test
+	public void reportsRemoteParentWithKeptTrace() {
+		MilliSpan remote = MilliSpan.builder().name("remote").traceId("trace")
+				.spanId("remote").remote(true).build();
+		MilliSpan root = span("trace", "root", "remote", 1, 2001);
+
+		this.listener.spanReleased(remote, root);
+
+		assertEquals(2, this.reported.size());
+		assertSame(remote, this.reported.get(1));
+	}
+
+	@Test
+	public void dropsRemoteParentWithDiscardedTrace() {
+		MilliSpan remote = MilliSpan.builder().name("remote").traceId("trace")
+				.spanId("remote").remote(true).build();
+
+		this.listener.spanReleased(remote, span("trace", "root", "remote", 1, 2));
+
+		assertEquals(0, this.reported.size());
+	}
+
+	@Test
+	public void keepsFailedTraces() {
+		MilliSpan root = span("trace", "root", null, 1, 2);
+		MilliSpan child = span("trace", "child", "root", 1, 2);
+		child.addAnnotation(TailSamplingSpanListener.STATUS_CODE, "503");
+		this.listener.spanReleased(root, child);
+
+		this.listener.spanReleased(null, root);
+
+		assertEquals(2, this.reported.size());
+	}
+
+	@Test
+	public void discardsFastSuccessfulTraces() {
+		MilliSpan root = span("trace", "root", null, 1, 2);
+		root.addAnnotation(TailSamplingSpanListener.STATUS_CODE, "200");
+		this.listener.spanReleased(root, span("trace", "child", "root", 1, 2));
+
+		this.listener.spanReleased(null, root);
+
+		assertEquals(0, this.reported.size());
+		assertEquals(1, this.listener.getDiscardedTraces());
+	}
+
+	@Test
+	public void bufferIsBounded() {
+		MilliSpan root = span("a", "root", null, 1, 2);
+		for (int i = 0; i < 3; i++) {
+			this.listener.spanReleased(root, span("a", "child" + i, "root", 1, 2));
+		}
+		this.listener.spanReleased(root, span("b", "child", "root", 1, 2));
+		this.listener.spanReleased(root, span("c", "child", "root", 1, 2));
+
+		assertEquals(1, this.listener.getDroppedSpans());
+		assertEquals(1, this.listener.getEvictedTraces());
+	}
+
+	@Test
+	public void evictsTracesWhoseRootNeverCloses() {
+		MilliSpan root = span("a", "root", null, 1, 2);
+		this.listener.spanReleased(root, span("a", "child", "root", 1, 2));
+
+		this.nanoTime += 200_000_000L;
+		this.listener.spanReleased(root, span("b", "child", "root", 1, 2));
+
+		assertEquals(1, this.listener.getEvictedTraces());
+	}
+
+	private MilliSpan span(String traceId, String spanId, String parentId, long begin,
+			long end) {
+		MilliSpan.MilliSpanBuilder builder = MilliSpan.builder().name(spanId)
+				.traceId(traceId).spanId(spanId).begin(begin).end(end);
+		if (parentId != null) {
+			builder.parent(parentId);
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.util.IdUtils;
+
+public class TraceIdBasedSamplerTests {
+
+	@Test
+	public void samplesConfiguredShareOfRandomIds() {
+		TraceIdBasedSampler sampler = new TraceIdBasedSampler(0.1f);
+		Random random = new Random(0);
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			if (sampler.isSampled(random.nextLong())) {
+				sampled++;
+			}
+		}
+		assertEquals(10000, sampled, 500);
+	}
+
+	@Test
+	public void samplesConfiguredShareOfIdsWithFixedBits() {
+		TraceIdBasedSampler sampler = new TraceIdBasedSampler(0.1f);
+		Random random = new Random(0);
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			// the variant bits of the low half of a random UUID
+			long id = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+			if (sampler.isSampled(id)) {
+				sampled++;
+			}
+		}
+		assertEquals(10000, sampled, 500);
+	}
+
+	@Test
+	public void lowerPercentageSamplesSubset() {
+		TraceIdBasedSampler low = new TraceIdBasedSampler(0.1f);
+		TraceIdBasedSampler high = new TraceIdBasedSampler(0.5f);
+		Random random = new Random(0);
+		for (int i = 0; i < 10000; i++) {
+			long id = random.nextLong();
+			if (low.isSampled(id)) {
+				assertTrue(high.isSampled(id));
+			}
+		}
+	}
+
+	@Test
+	public void hexAndNumericIdsAgree() {
+		TraceIdBasedSampler sampler = new TraceIdBasedSampler(0.5f);
+		Random random = new Random(0);
+		for (int i = 0; i < 1000; i++) {
+			long id = random.nextLong();
+			assertEquals(sampler.isSampled(id), sampler.isSampled(IdUtils.idToHex(id)));
+		}
+	}
+
+	@Test
+	public void zeroAndHundredPercent() {
+		assertFalse(new TraceIdBasedSampler(0.0f).isSampled(0L));
+		assertTrue(new TraceIdBasedSampler(1.0f).isSampled(-1L));
+	}
+
+}
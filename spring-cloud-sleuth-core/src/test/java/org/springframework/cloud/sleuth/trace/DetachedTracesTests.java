@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.Trace;
+import org.springframework.cloud.sleuth.log.Slf4jSpanListener;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.util.JdkIdGenerator;
+
+public class DetachedTracesTests {
+
+	private DefaultTraceManager traceManager = new DefaultTraceManager(
+			new AlwaysSampler(), new JdkIdGenerator(),
+			Collections.<SpanListener>singletonList(new Slf4jSpanListener()),
+			Collections.<SpanReporter>emptyList());
+
+	@After
+	public void clean() {
+		TraceContextHolder.removeCurrentTrace();
+		MDC.clear();
+	}
+
+	@Test
+	public void restoresCallingThread() {
+		Trace root = this.traceManager.startSpan("root");
+		Trace async = this.traceManager.startSpan("async");
+		this.traceManager.detach(async);
+		this.traceManager.detach(root);
+		MDC.clear();
+
+		// e.g. on the thread that completes an asynchronous request
+		DetachedTraces.close(this.traceManager, async);
+
+		assertTrue(async.getSpan().getEnd() != 0);
+		assertNull(TraceContextHolder.getCurrentTrace());
+		assertNull(MDC.get(Trace.SPAN_ID_NAME));
+	}
+
+	@Test
+	public void keepsCurrentTraceOfCallingThread() {
+		Trace async = this.traceManager.startSpan("async");
+		this.traceManager.detach(async);
+		Trace current = this.traceManager.startSpan("current");
+
+		DetachedTraces.close(this.traceManager, async);
+
+		assertTrue(async.getSpan().getEnd() != 0);
+		assertSame(current, TraceContextHolder.getCurrentTrace());
+		this.traceManager.close(current);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Trace;
+
+public class ScopedTraceContextStorageTests {
+
+	private ScopedTraceContextStorage storage = new ScopedTraceContextStorage();
+
+	private Object scope = new Object();
+
+	@Test
+	public void currentAndScopedTracesAreIndependent() {
+		Trace current = new Trace(MilliSpan.builder().name("current").build());
+		Trace scoped = new Trace(MilliSpan.builder().name("scoped").build());
+
+		this.storage.setCurrentTrace(current);
+		this.storage.setScopedTrace(this.scope, scoped);
+		assertSame(current, this.storage.getCurrentTrace());
+		assertSame(scoped, this.storage.getScopedTrace(this.scope));
+		assertNull(this.storage.getScopedTrace(new Object()));
+
+		this.storage.removeCurrentTrace();
+		assertNull(this.storage.getCurrentTrace());
+		assertSame(scoped, this.storage.removeScopedTrace(this.scope));
+		assertNull(this.storage.getScopedTrace(this.scope));
+	}
+
+	@Test
+	public void nullScopedTraceRemovesScope() {
+		Trace scoped = new Trace(MilliSpan.builder().name("scoped").build());
+
+		this.storage.setScopedTrace(this.scope, scoped);
+		this.storage.setScopedTrace(this.scope, null);
+		assertNull(this.storage.getScopedTrace(this.scope));
+	}
+
+	@Test
+	public void otherThreadsDoNotSeeTraces() throws Exception {
+		Trace current = new Trace(MilliSpan.builder().name("current").build());
+		this.storage.setCurrentTrace(current);
+		final Trace[] seen = new Trace[2];
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				seen[0] = ScopedTraceContextStorageTests.this.storage.getCurrentTrace();
+				seen[1] = ScopedTraceContextStorageTests.this.storage
+						.getScopedTrace(ScopedTraceContextStorageTests.this.scope);
+			}
+		});
+		thread.start();
+		thread.join();
+		assertNull(seen[0]);
+		assertNull(seen[1]);
+		this.storage.removeCurrentTrace();
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.trace;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+
+public class StackTraceContextStorageTests {
+
+	private StackTraceContextStorage storage = new StackTraceContextStorage();
+
+	@After
+	public void clear() {
+		this.storage.removeCurrentTrace();
+	}
+
+	@Test
+	public void nestedTracesArePushedAndPopped() {
+		Trace root = new Trace(MilliSpan.builder().name("root").build());
+		Trace child = new Trace(root, MilliSpan.builder().name("child").build());
+		Trace grandChild = new Trace(child, MilliSpan.builder().name("grandChild").build());
+
+		this.storage.setCurrentTrace(root);
+		this.storage.setCurrentTrace(child);
+		this.storage.setCurrentTrace(grandChild);
+		assertSame(grandChild, this.storage.getCurrentTrace());
+
+		this.storage.setCurrentTrace(root);
+		assertSame(root, this.storage.getCurrentTrace());
+
+		this.storage.removeCurrentTrace();
+		assertNull(this.storage.getCurrentTrace());
+	}
+
+	@Test
+	public void unrelatedTraceReplacesStack() {
+		Trace root = new Trace(MilliSpan.builder().name("root").build());
+		Trace other = new Trace(MilliSpan.builder().name("other").build());
+
+		this.storage.setCurrentTrace(root);
+		this.storage.setCurrentTrace(other);
+		assertSame(other, this.storage.getCurrentTrace());
+
+		this.storage.setCurrentTrace(root);
+		assertSame(root, this.storage.getCurrentTrace());
+	}
+
+	@Test
+	public void deepNestingGrowsStack() {
+		Trace trace = null;
+		Trace[] traces = new Trace[100];
+		for (int i = 0; i < traces.length; i++) {
+			trace = new Trace(trace, MilliSpan.builder().name("span" + i).build());
+			traces[i] = trace;
+			this.storage.setCurrentTrace(trace);
+		}
+		for (int i = traces.length - 1; i >= 0; i--) {
+			assertSame(traces[i], this.storage.getCurrentTrace());
+			this.storage.setCurrentTrace(traces[i].getSavedTrace());
+		}
+		assertNull(this.storage.getCurrentTrace());
+	}
+
+	@Test
+	public void pushedSpansGetTracesOnDemand() {
+		Span root = MilliSpan.builder().name("root").build();
+		Span child = MilliSpan.builder().name("child").build();
+
+		this.storage.push(root);
+		this.storage.push(child);
+		assertSame(child, this.storage.getCurrentSpan());
+
+		Trace trace = this.storage.getCurrentTrace();
+		assertSame(child, trace.getSpan());
+		assertSame(root, trace.getSavedTrace().getSpan());
+		assertSame(trace, this.storage.getCurrentTrace());
+
+		Trace grandChild = new Trace(trace, MilliSpan.builder().name("grandChild").build());
+		this.storage.setCurrentTrace(grandChild);
+		assertSame(grandChild, this.storage.getCurrentTrace());
+
+		assertSame(grandChild.getSpan(), this.storage.pop());
+		assertSame(child, this.storage.pop());
+		assertSame(root, this.storage.getCurrentSpan());
+		assertSame(root, this.storage.pop());
+		assertNull(this.storage.getCurrentTrace());
+		assertNull(this.storage.pop());
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TraceContextStorageInstallerTests {
+
+	@Test
+	public void restoresPreviousStorageOnDestroy() {
+		TraceContextStorage previous = TraceContextHolder.getStorage();
+		TraceContextStorage storage = new StackTraceContextStorage();
+		TraceContextStorageInstaller installer = new TraceContextStorageInstaller(storage);
+
+		installer.afterPropertiesSet();
+		assertSame(storage, TraceContextHolder.getStorage());
+
+		installer.destroy();
+		assertSame(previous, TraceContextHolder.getStorage());
+	}
+
+	@Test
+	public void keepsStorageInstalledByAnotherContext() {
+		TraceContextStorage previous = TraceContextHolder.getStorage();
+		TraceContextStorageInstaller first = new TraceContextStorageInstaller(
+				new StackTraceContextStorage());
+		TraceContextStorage other = new ScopedTraceContextStorage();
+		TraceContextStorageInstaller second = new TraceContextStorageInstaller(other);
+
+		first.afterPropertiesSet();
+		second.afterPropertiesSet();
+		first.destroy();
+		assertSame(other, TraceContextHolder.getStorage());
+
+		second.destroy();
+		TraceContextHolder.setStorage(previous);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ArrayMapTests {
+
+	@Test
+	public void keepsInsertionOrderWhileGrowing() {
+		ArrayMap<String, String> map = new ArrayMap<>();
+		Map<String, String> expected = new LinkedHashMap<>();
+		for (int i = 0; i < 20; i++) {
+			map.put("key" + i, "value" + i);
+			expected.put("key" + i, "value" + i);
+		}
+
+		assertEquals(expected, map);
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+	}
+
+	@Test
+	public void putReplacesExistingValue() {
+		ArrayMap<String, String> map = new ArrayMap<>();
+		map.put("a", "1");
+		map.put("b", "2");
+
+		assertEquals("1", map.put("a", "3"));
+		assertEquals(2, map.size());
+		assertEquals(Arrays.asList("3", "2"), new ArrayList<>(map.values()));
+	}
+
+	@Test
+	public void removeShiftsRemainingEntries() {
+		ArrayMap<String, String> map = new ArrayMap<>();
+		map.put("a", "1");
+		map.put("b", "2");
+		map.put("c", "3");
+
+		assertEquals("2", map.remove("b"));
+		assertNull(map.get("b"));
+		assertEquals(Arrays.asList("a", "c"), new ArrayList<>(map.keySet()));
+	}
+
+	@Test
+	public void readOnlyViewIsReused() {
+		ArrayMap<String, String> map = new ArrayMap<>();
+
+		assertSame(map.readOnly(), map.readOnly());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void readOnlyViewCannotBeModified() {
+		new ArrayMap<String, String>().readOnly().put("a", "b");
+	}
+
+}
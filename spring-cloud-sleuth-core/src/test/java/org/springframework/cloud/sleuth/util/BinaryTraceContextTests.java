@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.NoOpSpan;
+
+public class BinaryTraceContextTests {
+
+	private static final String TRACE_ID = "463ac35c9f6413ad";
+
+	private static final String SPAN_ID = "a2fb4a1d1a96d312";
+
+	private static final String PARENT_ID = "0020000000000001";
+
+	@Test
+	public void roundTripsSampledSpan() {
+		byte[] value = BinaryTraceContext
+				.write(MilliSpan.remote("foo", TRACE_ID, SPAN_ID, PARENT_ID, null));
+
+		assertEquals(26, value.length);
+		assertTrue(BinaryTraceContext.isValid(value));
+		assertTrue(BinaryTraceContext.isSampled(value));
+		assertEquals(TRACE_ID, BinaryTraceContext.getTraceId(value));
+		assertEquals(SPAN_ID, BinaryTraceContext.getSpanId(value));
+		assertEquals(PARENT_ID, BinaryTraceContext.getParentId(value));
+	}
+
+	@Test
+	public void roundTripsLongTraceId() {
+		String traceId = "fedcba9876543210" + TRACE_ID;
+		byte[] value = BinaryTraceContext
+				.write(MilliSpan.remote("foo", traceId, SPAN_ID, null, null));
+
+		assertEquals(34, value.length);
+		assertTrue(BinaryTraceContext.isValid(value));
+		assertEquals(traceId, BinaryTraceContext.getTraceId(value));
+		assertNull(BinaryTraceContext.getParentId(value));
+	}
+
+	@Test
+	public void writesUnsampledSpanWithTraceIdOnly() {
+		byte[] value = BinaryTraceContext.write(new NoOpSpan("foo", TRACE_ID));
+
+		assertFalse(BinaryTraceContext.isSampled(value));
+		assertEquals(TRACE_ID, BinaryTraceContext.getTraceId(value));
+		assertNull(BinaryTraceContext.getSpanId(value));
+	}
+
+	@Test
+	public void doesNotWriteLegacyIds() {
+		assertNull(BinaryTraceContext.write(MilliSpan.root("foo", "parent")));
+	}
+
+	@Test
+	public void rejectsUnknownValues() {
+		byte[] value = BinaryTraceContext.write(MilliSpan.root("foo", TRACE_ID));
+
+		assertFalse(BinaryTraceContext.isValid(null));
+		assertFalse(BinaryTraceContext.isValid(new byte[10]));
+		value[0] = 1;
+		assertFalse(BinaryTraceContext.isValid(value));
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.NoOpSpan;
+
+public class CompactTraceHeaderTests {
+
+	private static final String TRACE_ID = "463ac35c9f6413ad";
+
+	private static final String SPAN_ID = "a2fb4a1d1a96d312";
+
+	private static final String PARENT_ID = "0020000000000001";
+
+	@Test
+	public void writesSampledSpan() {
+		String value = CompactTraceHeader.write(TRACE_ID, SPAN_ID, PARENT_ID, true);
+
+		assertEquals(TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_ID, value);
+		assertTrue(CompactTraceHeader.isValid(value));
+		assertTrue(CompactTraceHeader.isSampled(value));
+		assertEquals(TRACE_ID, CompactTraceHeader.getTraceId(value));
+		assertEquals(SPAN_ID, CompactTraceHeader.getSpanId(value));
+		assertEquals(PARENT_ID, CompactTraceHeader.getParentId(value));
+	}
+
+	@Test
+	public void writesRootSpanWithoutParent() {
+		String value = CompactTraceHeader.write(MilliSpan.root("foo", SPAN_ID));
+
+		assertEquals(SPAN_ID + "-" + SPAN_ID + "-1", value);
+		assertNull(CompactTraceHeader.getParentId(value));
+	}
+
+	@Test
+	public void writesUnsampledSpanWithTraceIdOnly() {
+		String value = CompactTraceHeader.write(new NoOpSpan("foo", TRACE_ID));
+
+		assertEquals(TRACE_ID + "-0000000000000000-0", value);
+		assertFalse(CompactTraceHeader.isSampled(value));
+		assertNull(CompactTraceHeader.getSpanId(value));
+		assertEquals(TRACE_ID, CompactTraceHeader.getTraceId(value));
+	}
+
+	@Test
+	public void doesNotWriteLegacyIds() {
+		assertNull(CompactTraceHeader.write("3d2a5c1e-9f1b-4a7e-b1c3-0123456789ab",
+				SPAN_ID, null, true));
+		assertNull(CompactTraceHeader.write(TRACE_ID, "abc", null, true));
+	}
+
+	@Test
+	public void rejectsMalformedValues() {
+		assertFalse(CompactTraceHeader.isValid(null));
+		assertFalse(CompactTraceHeader.isValid(""));
+		assertFalse(CompactTraceHeader.isValid(TRACE_ID + "-" + SPAN_ID + "-2"));
+		assertFalse(CompactTraceHeader.isValid(TRACE_ID + "_" + SPAN_ID + "-1"));
+		assertFalse(CompactTraceHeader.isValid(TRACE_ID + "-" + SPAN_ID + "-1-"
+				+ "zz20000000000001"));
+	}
+
+}
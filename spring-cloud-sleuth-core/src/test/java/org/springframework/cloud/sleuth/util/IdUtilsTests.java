@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class IdUtilsTests {
+
+	@Test
+	public void hexIsFixedLength() {
+		assertEquals("0000000000000001", IdUtils.idToHex(1L));
+		assertEquals("ffffffffffffffff", IdUtils.idToHex(-1L));
+		assertEquals("8000000000000000", IdUtils.idToHex(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void hexRoundTrips() {
+		long[] ids = { 0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 0x1234abcdL };
+		for (long id : ids) {
+			assertEquals(id, IdUtils.hexToId(IdUtils.idToHex(id)));
+		}
+	}
+
+	@Test
+	public void shortAndUpperCaseHexIsParsed() {
+		assertEquals(0xabcL, IdUtils.hexToId("ABC"));
+	}
+
+	@Test
+	public void longHexKeepsLowBits() {
+		assertEquals(0x0123456789abcdefL,
+				IdUtils.hexToId("fedcba98765432100123456789abcdef"));
+	}
+
+	@Test
+	public void uuidKeepsLeastSignificantBits() {
+		assertEquals(0xb1c30123456789abL,
+				IdUtils.hexToId("3d2a5c1e-9f1b-4a7e-b1c3-0123456789ab"));
+	}
+
+	@Test
+	public void legacyIdsAreHashedConsistently() {
+		assertEquals(IdUtils.hexToId("parent"), IdUtils.hexToId("parent"));
+		assertNotEquals(IdUtils.hexToId("parent"), IdUtils.hexToId("child"));
+	}
+
+}
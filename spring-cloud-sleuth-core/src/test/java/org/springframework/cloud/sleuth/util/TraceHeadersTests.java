@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.util;
+package org.springframework.cloud.sleuth.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.MilliSpan;
+import org.springframework.cloud.sleuth.NoOpSpan;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Trace;
+
+public class TraceHeadersTests {
+
+	private static final String TRACE_ID = "463ac35c9f6413ad";
+
+	private static final String SPAN_ID = "a2fb4a1d1a96d312";
+
+	private static final String PARENT_ID = "0020000000000001";
+
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	private final TraceHeaders.Setter setter = new TraceHeaders.Setter() {
+		@Override
+		public void setHeader(String name, String value) {
+			TraceHeadersTests.this.headers.put(name, value);
+		}
+	};
+
+	@Test
+	public void writesNotSampledWithoutSpan() {
+		TraceHeaders.inject(null, true, this.setter);
+
+		assertEquals(singleHeader(Trace.NOT_SAMPLED_NAME, ""), this.headers);
+	}
+
+	@Test
+	public void writesSeparateHeaders() {
+		TraceHeaders.inject(span(), false, this.setter);
+
+		assertEquals(TRACE_ID, this.headers.get(Trace.TRACE_ID_NAME));
+		assertEquals(SPAN_ID, this.headers.get(Trace.SPAN_ID_NAME));
+		assertEquals("foo", this.headers.get(Trace.SPAN_NAME_NAME));
+		assertEquals(PARENT_ID, this.headers.get(Trace.PARENT_ID_NAME));
+		assertEquals("process", this.headers.get(Trace.PROCESS_ID_NAME));
+		assertEquals(5, this.headers.size());
+	}
+
+	@Test
+	public void writesCompactHeader() {
+		TraceHeaders.inject(span(), true, this.setter);
+
+		assertEquals(singleHeader(Trace.TRACE_CONTEXT_NAME,
+				TRACE_ID + "-" + SPAN_ID + "-1-" + PARENT_ID), this.headers);
+	}
+
+	@Test
+	public void fallsBackToSeparateHeadersForLegacyIds() {
+		Span span = MilliSpan.remote("foo", TRACE_ID, "abc", null, null);
+
+		TraceHeaders.inject(span, true, this.setter);
+
+		assertEquals(TRACE_ID, this.headers.get(Trace.TRACE_ID_NAME));
+		assertEquals("abc", this.headers.get(Trace.SPAN_ID_NAME));
+		assertEquals(3, this.headers.size());
+	}
+
+	@Test
+	public void writesTraceIdOnlyForUnsampledSpan() {
+		TraceHeaders.inject(new NoOpSpan("foo", TRACE_ID), false, this.setter);
+
+		assertEquals(TRACE_ID, this.headers.get(Trace.TRACE_ID_NAME));
+		assertEquals("", this.headers.get(Trace.NOT_SAMPLED_NAME));
+		assertEquals(2, this.headers.size());
+	}
+
+	private Span span() {
+		return MilliSpan.remote("foo", TRACE_ID, SPAN_ID, PARENT_ID, "process");
+	}
+
+	private Map<String, String> singleHeader(String name, String value) {
+		Map<String, String> map = new LinkedHashMap<>();
+		map.put(name, value);
+		return map;
+	}
+
+}
@@ -20,13 +20,14 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.springframework.cloud.sleuth.ExporterStatus;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
 import org.springframework.cloud.sleuth.event.ServerReceivedEvent;
 import org.springframework.cloud.sleuth.event.ServerSentEvent;
-import org.springframework.cloud.sleuth.event.SpanAcquiredEvent;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.integration.annotation.InboundChannelAdapter;
@@ -38,7 +39,8 @@ import org.springframework.integration.annotation.MessageEndpoint;
  * @author Dave Syer
  */
 @MessageEndpoint
-public class StreamSpanListener {
+@Order(0)
+public class StreamSpanListener implements SpanListener, SpanReporter, ExporterStatus {
 
 	public static final String CLIENT_RECV = "cr";
 	public static final String CLIENT_SEND = "cs";
@@ -56,10 +58,18 @@ public class StreamSpanListener {
 		this.queue = queue;
 	}
 
-	@EventListener
-	@Order(0)
-	public void start(SpanAcquiredEvent event) {
-		event.getSpan().addTimelineAnnotation("acquire");
+	@Override
+	public void spanAcquired(Span parent, Span span) {
+		span.addTimelineAnnotation("acquire");
+	}
+
+	@Override
+	public void spanContinued(Span span) {
+	}
+
+	@Override
+	public void spanReleased(Span parent, Span span) {
+		span.addTimelineAnnotation("release");
 	}
 
 	@EventListener
@@ -86,18 +96,29 @@ public class StreamSpanListener {
 	@Order(0)
 	public void serverSend(ServerSentEvent event) {
 		if (event.getParent() != null && event.getParent().isRemote()) {
+			// the remote parent is reported after its local root
 			event.getParent().addTimelineAnnotation(SERVER_SEND);
-			this.queue.add(event.getParent());
 		}
 	}
 
-	@EventListener
-	@Order(0)
-	public void release(SpanReleasedEvent event) {
-		event.getSpan().addTimelineAnnotation("release");
-		if (event.getSpan().isExportable()) {
-			this.queue.add(event.getSpan());
+	@Override
+	public void report(Span span) {
+		if (span.isRemote() && span.getTimelineAnnotations().isEmpty()) {
+			// a remote parent that this service did not handle as a server
+			return;
 		}
+		this.queue.add(span);
+	}
+
+	@Override
+	public int getQueuedSpans() {
+		return this.queue.size();
+	}
+
+	@Override
+	public long getDroppedSpans() {
+		// the queue is unbounded, spans are only ever delayed
+		return 0;
 	}
 
 	@InboundChannelAdapter(value = SleuthSource.OUTPUT)
@@ -20,6 +20,7 @@ import org.springframework.cloud.sleuth.TimelineAnnotation;
 import org.springframework.cloud.sleuth.stream.Host;
 import org.springframework.cloud.sleuth.stream.SleuthSink;
 import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.util.IdUtils;
 import org.springframework.cloud.sleuth.zipkin.stream.ZipkinMessageListener.NotSleuthStreamClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ConditionContext;
@@ -98,15 +99,15 @@ public class ZipkinMessageListener {
 
 		zipkinSpan.timestamp(span.getBegin() * 1000);
 		zipkinSpan.duration((span.getEnd() - span.getBegin()) * 1000);
-		zipkinSpan.traceId(hash(span.getTraceId()));
+		zipkinSpan.traceId(IdUtils.hexToId(span.getTraceId()));
 		if (span.getParents().size() > 0) {
 			if (span.getParents().size() > 1) {
 				log.error("zipkin doesn't support spans with multiple parents.  Omitting "
 						+ "other parents for " + span);
 			}
-			zipkinSpan.parentId(hash(span.getParents().get(0)));
+			zipkinSpan.parentId(IdUtils.hexToId(span.getParents().get(0)));
 		}
-		zipkinSpan.id(hash(span.getSpanId()));
+		zipkinSpan.id(IdUtils.hexToId(span.getSpanId()));
 		if (StringUtils.hasText(span.getName())) {
 			zipkinSpan.name(span.getName());
 		}
@@ -149,19 +150,6 @@ public class ZipkinMessageListener {
 		}
 	}
 
-	private static long hash(String string) {
-		long h = 1125899906842597L;
-		if (string == null) {
-			return h;
-		}
-		int len = string.length();
-
-		for (int i = 0; i < len; i++) {
-			h = 31 * h + string.charAt(i);
-		}
-		return h;
-	}
-
 	protected static class NotSleuthStreamClient extends SpringBootCondition {
 
 		@Override
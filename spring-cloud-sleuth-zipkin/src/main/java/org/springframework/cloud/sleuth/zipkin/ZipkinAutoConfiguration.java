@@ -18,6 +18,7 @@ package org.springframework.cloud.sleuth.zipkin;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
@@ -25,6 +26,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
+import org.springframework.cloud.sleuth.sampler.FixedRateSampler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -38,6 +42,7 @@ import com.github.kristofa.brave.scribe.ScribeSpanCollector;
 @EnableConfigurationProperties
 @ConditionalOnClass(ScribeSpanCollector.class)
 @ConditionalOnProperty(value = "spring.zipkin.enabled", matchIfMissing = true)
+@AutoConfigureBefore(TraceAutoConfiguration.class)
 public class ZipkinAutoConfiguration {
 
 	@Bean
@@ -54,6 +59,17 @@ public class ZipkinAutoConfiguration {
 		return new ZipkinProperties();
 	}
 
+	/**
+	 * Honours {@code spring.zipkin.fixedSampleRate}: a rate of N exports one in N new
+	 * traces.
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty("spring.zipkin.fixedSampleRate")
+	public Sampler<Void> zipkinFixedRateSampler(ZipkinProperties zipkin) {
+		return new FixedRateSampler(Math.max(1, zipkin.getFixedSampleRate()));
+	}
+
 	@Bean
 	public ZipkinSpanListener sleuthTracer(SpanCollector spanCollector, EndpointLocator endpointLocator) {
 		return new ZipkinSpanListener(spanCollector, endpointLocator.local());
@@ -18,15 +18,19 @@ package org.springframework.cloud.sleuth.zipkin;
 
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.cloud.sleuth.ExporterStatus;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanListener;
+import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.TimelineAnnotation;
 import org.springframework.cloud.sleuth.event.ClientReceivedEvent;
 import org.springframework.cloud.sleuth.event.ClientSentEvent;
 import org.springframework.cloud.sleuth.event.ServerReceivedEvent;
 import org.springframework.cloud.sleuth.event.ServerSentEvent;
-import org.springframework.cloud.sleuth.event.SpanAcquiredEvent;
-import org.springframework.cloud.sleuth.event.SpanReleasedEvent;
+import org.springframework.cloud.sleuth.util.IdUtils;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.util.StringUtils;
@@ -41,14 +45,20 @@ import com.twitter.zipkin.gen.zipkinCoreConstants;
 import lombok.extern.apachecommons.CommonsLog;
 
 /**
+ * Reports exportable spans to Zipkin. Also handles RPC flavoured annotations.
+ *
  * @author Spencer Gibb
  */
 @CommonsLog
-public class ZipkinSpanListener {
+@Order(0)
+public class ZipkinSpanListener implements SpanListener, SpanReporter, ExporterStatus {
 	private static final Charset UTF_8 = Charset.forName("UTF-8");
 	private static final byte[] UNKNOWN_BYTES = "unknown".getBytes(UTF_8);
 
 	private SpanCollector spanCollector;
+	// spans handed to a collector that has not returned yet
+	private final AtomicInteger collecting = new AtomicInteger();
+	private final AtomicLong dropped = new AtomicLong();
 	/**
 	 * Endpoint is the visible IP address of this service, the port it is listening on and
 	 * the service name from discovery.
@@ -61,11 +71,18 @@ public class ZipkinSpanListener {
 		this.localEndpoint = localEndpoint;
 	}
 
-	@EventListener
-	@Order(0)
-	public void start(SpanAcquiredEvent event) {
+	@Override
+	public void spanAcquired(Span parent, Span span) {
 		// Zipkin Span.timestamp corresponds with Sleuth's Span.begin
-		assert event.getSpan().getBegin() != 0;
+		assert span.getBegin() != 0;
+	}
+
+	@Override
+	public void spanContinued(Span span) {
+	}
+
+	@Override
+	public void spanReleased(Span parent, Span span) {
 	}
 
 	@EventListener
@@ -98,20 +115,59 @@ public class ZipkinSpanListener {
 	@Order(0)
 	public void serverSend(ServerSentEvent event) {
 		if (event.getParent() != null && event.getParent().isRemote()) {
+			// the remote parent is reported after its local root
 			event.getParent().addTimelineAnnotation(zipkinCoreConstants.SERVER_SEND);
-			this.spanCollector.collect(convert(event.getParent()));
 		}
 	}
 
-	@EventListener
-	@Order(0)
-	public void release(SpanReleasedEvent event) {
+	@Override
+	public void report(Span span) {
+		if (span.isRemote()) {
+			// Only remote parents that this service handled as a server carry
+			// annotations, they are still open
+			if (!span.getTimelineAnnotations().isEmpty()) {
+				collect(convert(span));
+			}
+			return;
+		}
 		// Ending a span in zipkin means adding duration and sending it out
 		// Zipkin Span.duration corresponds with Sleuth's Span.begin and end
-		assert event.getSpan().getEnd() != 0;
-		if (event.getSpan().isExportable()) {
-			this.spanCollector.collect(convert(event.getSpan()));
+		assert span.getEnd() != 0;
+		collect(convert(span));
+	}
+
+	private void collect(com.twitter.zipkin.gen.Span span) {
+		this.collecting.incrementAndGet();
+		try {
+			this.spanCollector.collect(span);
+		}
+		catch (RuntimeException e) {
+			this.dropped.incrementAndGet();
+			throw e;
 		}
+		finally {
+			this.collecting.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Brave's {@link SpanCollector} does not expose its queue, so this only counts the
+	 * spans whose {@code collect} call has not returned yet. It rises when a collector
+	 * blocks, but not while a collector that queues spans internally falls behind.
+	 */
+	@Override
+	public int getQueuedSpans() {
+		return this.collecting.get();
+	}
+
+	/**
+	 * Counts the spans whose {@code collect} call threw. A collector that discards spans
+	 * from a full internal queue without throwing (like Brave's scribe collector, which
+	 * only logs) is not seen here.
+	 */
+	@Override
+	public long getDroppedSpans() {
+		return this.dropped.get();
 	}
 
 	/**
@@ -145,15 +201,15 @@ public class ZipkinSpanListener {
 
 		zipkinSpan.setTimestamp(span.getBegin() * 1000L);
 		zipkinSpan.setDuration((span.getEnd() - span.getBegin()) * 1000L);
-		zipkinSpan.setTrace_id(hash(span.getTraceId()));
+		zipkinSpan.setTrace_id(IdUtils.hexToId(span.getTraceId()));
 		if (span.getParents().size() > 0) {
 			if (span.getParents().size() > 1) {
 				log.error("Zipkin doesn't support spans with multiple parents. Omitting "
 						+ "other parents for " + span);
 			}
-			zipkinSpan.setParent_id(hash(span.getParents().get(0)));
+			zipkinSpan.setParent_id(IdUtils.hexToId(span.getParents().get(0)));
 		}
-		zipkinSpan.setId(hash(span.getSpanId()));
+		zipkinSpan.setId(IdUtils.hexToId(span.getSpanId()));
 		if (StringUtils.hasText(span.getName())) {
 			zipkinSpan.setName(span.getName());
 		}
@@ -191,17 +247,4 @@ public class ZipkinSpanListener {
 		}
 	}
 
-	private static long hash(String string) {
-		long h = 1125899906842597L;
-		if (string == null) {
-			return h;
-		}
-		int len = string.length();
-
-		for (int i = 0; i < len; i++) {
-			h = 31 * h + string.charAt(i);
-		}
-		return h;
-	}
-
 }
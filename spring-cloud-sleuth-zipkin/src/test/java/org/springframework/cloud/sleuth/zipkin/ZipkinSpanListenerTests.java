@@ -110,6 +110,20 @@ public class ZipkinSpanListenerTests {
 				.isEqualTo(result.annotations.get(0).host);
 	}
 
+	/** Sleuth hex ids map exactly onto zipkin's 64-bit ids. */
+	@Test
+	public void hexIdsAreConvertedExactly() {
+		Span span = MilliSpan.builder().traceId("48485a3953bb6124")
+				.spanId("d1c8e9ab4f6b0ccd").parent("000000000000000a").name("foo")
+				.build();
+
+		com.twitter.zipkin.gen.Span result = listener.convert(span);
+
+		assertThat(result.trace_id).isEqualTo(0x48485a3953bb6124L);
+		assertThat(result.id).isEqualTo(0xd1c8e9ab4f6b0ccdL);
+		assertThat(result.parent_id).isEqualTo(10L);
+	}
+
 	/** zipkin's Endpoint.serviceName should never be null. */
 	@Test
 	public void localEndpointIncludesServiceName() {
@@ -143,6 +157,14 @@ public class ZipkinSpanListenerTests {
 		assertEquals(2, this.test.spans.size());
 	}
 
+	/** A remote parent is only exported when this service handled it as a server. */
+	@Test
+	public void remoteParentWithoutServerAnnotationsIsNotExported() {
+		Trace context = this.traceManager.startSpan("child", parent);
+		this.traceManager.close(context);
+		assertEquals(1, this.test.spans.size());
+	}
+
 	@Configuration
 	@Import({ ZipkinTestConfiguration.class, ZipkinAutoConfiguration.class, TraceAutoConfiguration.class,
 			PropertyPlaceholderAutoConfiguration.class })